@@ -0,0 +1,38 @@
+package jpabook.jpashop;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+
+/**
+ * 벤치마크용 애플리케이션 실행
+ * - setDefaultProperties는 application.yml보다 우선순위가 낮아서 설정이 덮어써진다. (개발용 tcp DB에 붙어서 ddl-auto: create로 지워버림)
+ *   그래서 벤치마크 설정은 커맨드라인 인자(--key=value)로 넘긴다. 커맨드라인 인자는 application.yml보다 우선한다.
+ * - 인메모리 H2가 아니면 측정하지 않고 바로 실패한다.
+ */
+public final class BenchmarkApplication {
+
+    private static final String IN_MEMORY_H2 = "jdbc:h2:mem:";
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext run(Map<String, Object> properties) {
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+
+        SpringApplication application = new SpringApplication(JpashopApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        ConfigurableApplicationContext context = application.run(args);
+
+        String url = context.getEnvironment().getProperty("spring.datasource.url");
+        if (url == null || !url.startsWith(IN_MEMORY_H2)) {
+            context.close();
+            throw new IllegalStateException("벤치마크는 인메모리 H2에서만 실행합니다. spring.datasource.url=" + url);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,189 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.BenchmarkApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 전략(v2 ~ v6) 비교
+ * - 인메모리 H2에 주문 orders건(주문마다 상품 itemsPerOrder개)을 넣어두고 각 전략을 처음부터 끝까지(조회 + DTO 변환 [+ JSON]) 실행한다.
+ * - Throughput(ops/s)과 SampleTime(지연시간 분포, p50/p90/p99 ...)을 같이 측정한다. 할당량은 gc 프로파일러(build.gradle jmh.profilers)
+ * - 실행: ./gradlew jmh  (결과: build/results/jmh/results.json)
+ * - v2(findAllByString)는 최대 1000건까지만 조회하므로 orders가 1000보다 크면 다른 전략과 건수가 달라진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    private static final int MEMBERS = 100;
+    private static final int ITEMS = 50;
+    private static final int SEED_CHUNK = 500; //OrderService.orderBatch 한 번에 넣을 주문 수
+
+    @Param({"100", "1000"})
+    public int orders;
+
+    @Param({"2", "5"})
+    public int itemsPerOrder;
+
+    @Param({"false", "true"})
+    public boolean json;
+
+    private ConfigurableApplicationContext context;
+    private OrderApiController orderApiController;
+    private TransactionTemplate readOnlyTx;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.run(benchmarkProperties());
+
+        orderApiController = context.getBean(OrderApiController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        readOnlyTx = new TransactionTemplate(tx.getTransactionManager());
+        readOnlyTx.setReadOnly(true);
+
+        seed(tx, context.getBean(EntityManager.class), context.getBean(OrderService.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /* 엔티티 조회 + 지연 로딩(default_batch_fetch_size)으로 DTO 변환 */
+    @Benchmark
+    public Object v2_lazyLoading() {
+        return run(() -> orderApiController.ordersV2());
+    }
+
+    /* 컬렉션까지 fetch join (페이징 불가) */
+    @Benchmark
+    public Object v3_fetchJoin() {
+        return run(() -> orderApiController.ordersV3());
+    }
+
+    /* ToOne fetch join + 컬렉션 batch fetch */
+    @Benchmark
+    public Object v3_1_batchFetch() {
+        return run(() -> orderApiController.ordersV3_page(0, orders));
+    }
+
+    /* DTO 직접 조회, 주문마다 orderItem 조회 (1 + N) */
+    @Benchmark
+    public Object v4_perOrderQuery() {
+        return run(() -> orderApiController.ordersV4());
+    }
+
+    /* DTO 직접 조회, orderItem은 IN 조회 후 Map으로 매칭 (1 + 1) */
+    @Benchmark
+    public Object v5_inQuery() {
+        return run(() -> orderApiController.ordersV5());
+    }
+
+    /* DTO 직접 조회, 플랫 조인 한 번 후 애플리케이션에서 접기 (1) */
+    @Benchmark
+    public Object v6_flatJoin() {
+        return run(() -> orderApiController.ordersV6());
+    }
+
+    /* OSIV가 없으므로 지연 로딩이 되도록 읽기 전용 트랜잭션 안에서 실행. json=true면 응답 직렬화까지 포함 */
+    private Object run(Supplier<List<?>> strategy) {
+        return readOnlyTx.execute(status -> {
+            List<?> result = strategy.get();
+            if (!json) {
+                return result;
+            }
+            try {
+                return objectMapper.writeValueAsBytes(result);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private Map<String, Object> benchmarkProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("decorator.datasource.enabled", "false"); //p6spy 로깅 끄기
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "off");
+        return properties;
+    }
+
+    private void seed(TransactionTemplate tx, EntityManager em, OrderService orderService) {
+        List<Long> memberIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member();
+                member.setName("bench-member-" + i);
+                member.setAddress(new Address("서울", "테헤란로", String.valueOf(i)));
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+        List<Long> itemIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("bench-book-" + i);
+                book.setPrice(10000 + i * 100);
+                book.setStockQuantity(Integer.MAX_VALUE / 2);
+                em.persist(book);
+                ids.add(book.getId());
+            }
+            return ids;
+        });
+
+        List<OrderBatchCommand> commands = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            List<OrderBatchCommand.Line> lines = new ArrayList<>();
+            for (int j = 0; j < itemsPerOrder; j++) {
+                lines.add(new OrderBatchCommand.Line(itemIds.get((i + j) % ITEMS), 1));
+            }
+            commands.add(new OrderBatchCommand(memberIds.get(i % MEMBERS), lines));
+            if (commands.size() == SEED_CHUNK) {
+                orderService.orderBatch(commands);
+                commands = new ArrayList<>();
+            }
+        }
+        if (!commands.isEmpty()) {
+            orderService.orderBatch(commands);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.BenchmarkApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * @ReadOnlyQuery 효과 - findAllWithItem(주문 + 회원 + 배송 + 주문상품 + 상품 fetch join)을 DTO로 변환하기까지
+ * - osiv_default: OSIV처럼 영속성 컨텍스트만 열고 트랜잭션 없이 조회 (엔티티마다 스냅샷 보관)
+ * - osiv_readOnlyQuery: 같은 조건에서 @ReadOnlyQuery가 붙은 OrderApiController.ordersV3() 호출
+ * - readWriteTx: 읽기/쓰기 트랜잭션 안에서 조회 (커밋 시 flush -> 전체 엔티티 dirty checking)
+ * - readOnlyTx: 읽기 전용 트랜잭션 (스프링이 세션을 읽기 전용으로 바꿔주는 기존 방식, 비교 기준)
+ * - 힙: gc 프로파일러의 gc.alloc.rate.norm(연산당 할당량), CPU: 평균 시간
+ * - 실행: ./gradlew jmh -PjmhIncludes=ReadOnlyQuery
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g") //주문 10만건 + 주문상품 20만건이 한 영속성 컨텍스트에 올라간다.
+public class ReadOnlyQueryBenchmark {
+
+    private static final int MEMBERS = 1000;
+    private static final int ITEMS = 100;
+    private static final int ITEMS_PER_ORDER = 2;
+    private static final int SEED_CHUNK = 500; //OrderService.orderBatch 한 번에 넣을 주문 수
+
+    @Param({"100000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private OrderRepository orderRepository;
+    private OrderApiController orderApiController;
+    private TransactionTemplate readWriteTx;
+    private TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.run(benchmarkProperties());
+
+        emf = context.getBean(EntityManagerFactory.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderApiController = context.getBean(OrderApiController.class);
+        readWriteTx = context.getBean(TransactionTemplate.class);
+        readOnlyTx = new TransactionTemplate(readWriteTx.getTransactionManager());
+        readOnlyTx.setReadOnly(true);
+
+        seed(readWriteTx, context.getBean(EntityManager.class), context.getBean(OrderService.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object osiv_default() {
+        return inOpenEntityManager(this::findAllWithItem);
+    }
+
+    @Benchmark
+    public Object osiv_readOnlyQuery() {
+        return inOpenEntityManager(() -> orderApiController.ordersV3());
+    }
+
+    @Benchmark
+    public Object readWriteTx() {
+        return readWriteTx.execute(status -> findAllWithItem());
+    }
+
+    @Benchmark
+    public Object readOnlyTx() {
+        return readOnlyTx.execute(status -> findAllWithItem());
+    }
+
+    /* OrderApiController.ordersV3()와 같은 조회 + 변환 (@ReadOnlyQuery 없이) */
+    private List<OrderApiController.OrderDto> findAllWithItem() {
+        return orderRepository.findAllWithItem().stream()
+                .map(OrderApiController.OrderDto::new)
+                .collect(toList());
+    }
+
+    /* OpenEntityManagerInViewInterceptor가 요청마다 하는 일 - 영속성 컨텍스트를 스레드에 바인딩하고, 끝나면 닫는다. */
+    private Object inOpenEntityManager(Supplier<List<?>> query) {
+        EntityManager em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            return query.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(em);
+        }
+    }
+
+    private Map<String, Object> benchmarkProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:jmh-readonly;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("decorator.datasource.enabled", "false"); //p6spy 로깅 끄기
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "off");
+        return properties;
+    }
+
+    private void seed(TransactionTemplate tx, EntityManager em, OrderService orderService) {
+        List<Long> memberIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member();
+                member.setName("readonly-member-" + i);
+                member.setAddress(new Address("서울", "테헤란로", String.valueOf(i)));
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+        List<Long> itemIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("readonly-book-" + i);
+                book.setPrice(10000 + i * 100);
+                book.setStockQuantity(Integer.MAX_VALUE / 2);
+                em.persist(book);
+                ids.add(book.getId());
+            }
+            return ids;
+        });
+
+        List<OrderBatchCommand> commands = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            List<OrderBatchCommand.Line> lines = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                lines.add(new OrderBatchCommand.Line(itemIds.get((i + j) % ITEMS), 1));
+            }
+            commands.add(new OrderBatchCommand(memberIds.get(i % MEMBERS), lines));
+            if (commands.size() == SEED_CHUNK) {
+                orderService.orderBatch(commands);
+                commands = new ArrayList<>();
+            }
+        }
+        if (!commands.isEmpty()) {
+            orderService.orderBatch(commands);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.BenchmarkApplication;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 1건(orders, order_item, delivery 3개 엔티티 persist)의 왕복 시간 - 시퀀스 할당 크기별
+ * - incrementSize=1: persist 할 때마다 next value 쿼리 (주문 1건에 시퀀스 조회 3번)
+ * - incrementSize=50: 50건에 한 번만 시퀀스를 올리고 나머지는 메모리에서 꺼내 쓴다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=IdGeneration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    @Param({"1", "50"})
+    public int incrementSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private Long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.run(benchmarkProperties());
+        checkIncrementSize(context.getBean(EntityManagerFactory.class));
+
+        orderService = context.getBean(OrderService.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        EntityManager em = context.getBean(EntityManager.class);
+
+        tx.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("id-member");
+            member.setAddress(new Address("서울", "테헤란로", "1"));
+            em.persist(member);
+            memberId = member.getId();
+
+            Book book = new Book();
+            book.setName("id-book");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE / 2); //측정 중에 품절되지 않도록
+            em.persist(book);
+            itemId = book.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, itemId, 1);
+    }
+
+    /* application.yml의 increment_size(50)에 덮어써지면 두 @Param이 같은 조건이 되므로 실제로 적용된 값을 확인한다. */
+    private void checkIncrementSize(EntityManagerFactory emf) {
+        IdentifierGenerator generator = emf.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(Order.class)
+                .getIdentifierGenerator();
+        int effective = ((SequenceStyleGenerator) generator).getOptimizer().getIncrementSize();
+        if (effective != incrementSize) {
+            throw new IllegalStateException("increment_size가 적용되지 않았습니다. expected=" + incrementSize + ", actual=" + effective);
+        }
+    }
+
+    private Map<String, Object> benchmarkProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:jmh-id;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("spring.jpa.properties." + PooledSequenceGenerator.INCREMENT_SIZE_SETTING, String.valueOf(incrementSize));
+        properties.put("decorator.datasource.enabled", "false"); //p6spy 로깅 끄기
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "off");
+        return properties;
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * V6 플랫 row 변환 - groupingBy(기존 방식) vs OrderFlatFolder.fold (DB 없이 변환만)
+ * - 힙: gc 프로파일러의 gc.alloc.rate.norm(연산당 할당량), CPU: 평균 시간
+ * - 실행: ./gradlew jmh -PjmhIncludes=OrderFlatFolder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderFlatFolderBenchmark {
+
+    @Param({"1000", "200000"})
+    public int orders;
+
+    @Param({"3"})
+    public int itemsPerOrder;
+
+    private List<OrderFlatDto> flats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Address address = new Address("서울", "테헤란로", "123-456");
+        LocalDateTime now = LocalDateTime.now();
+        flats = new ArrayList<>(orders * itemsPerOrder);
+        for (long orderId = 1; orderId <= orders; orderId++) { //주문 id 순으로 정렬된 row
+            for (int i = 1; i <= itemsPerOrder; i++) {
+                flats.add(new OrderFlatDto(orderId, "회원" + orderId, now, OrderStatus.ORDER, address,
+                        "item" + orderId + "-" + i, 10000 * i, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> groupBy() {
+        return groupByOrder(flats);
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> fold() {
+        return OrderFlatFolder.fold(flats);
+    }
+
+    /* 기존 V6 방식 - 전체 주문을 HashMap에 올리고, row마다 키 DTO를 만든다. */
+    private static List<OrderQueryDto> groupByOrder(List<OrderFlatDto> flats) {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),
+                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
+                                o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
+                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
+                        e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+}
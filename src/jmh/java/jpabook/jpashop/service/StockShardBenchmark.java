@@ -0,0 +1,105 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.BenchmarkApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 샤딩 효과 - 한 상품에 동시에 주문이 몰릴 때 샤드 수(shards)에 따른 주문 처리량
+ * - shards=0: 샤딩하지 않음 (item row 하나에 조건부 UPDATE가 몰림, 비교 기준)
+ * - shards=N: 재고를 N개 row로 나눔. 경합이 1/N로 줄어드는 만큼, 커넥션 풀/CPU가 허용하는 범위에서 처리량이 N에 비례해서 늘어야 한다.
+ * - 스레드 수(@Threads)가 샤드 수보다 많아야 차이가 보인다. 16스레드 기준, 16샤드 이상은 효과가 없다.
+ * - 인메모리 H2라 row 락을 잡고 있는 시간(주문 insert까지)이 실제 DB보다 짧다. 운영 DB에서는 차이가 더 크게 난다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=StockShard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class StockShardBenchmark {
+
+    private static final int THREADS = 16;
+
+    @Param({"0", "1", "4", "16"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private Long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.run(benchmarkProperties());
+
+        orderService = context.getBean(OrderService.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        EntityManager em = context.getBean(EntityManager.class);
+
+        tx.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("shard-member");
+            member.setAddress(new Address("서울", "테헤란로", "1"));
+            em.persist(member);
+            memberId = member.getId();
+
+            Book book = new Book();
+            book.setName("shard-book");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE / 2); //측정 중에 품절되지 않도록
+            em.persist(book);
+            itemId = book.getId();
+        });
+        if (shards > 0) {
+            context.getBean(ItemService.class).shardStock(itemId, shards);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, itemId, 1);
+    }
+
+    private Map<String, Object> benchmarkProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:jmh-shard;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"); //락 대기가 기본 1초를 넘을 수 있다.
+        properties.put("spring.datasource.hikari.maximum-pool-size", String.valueOf(THREADS)); //커넥션 대기가 아니라 row 락 경합을 재도록
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("decorator.datasource.enabled", "false"); //p6spy 로깅 끄기
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "off");
+        return properties;
+    }
+}
@@ -0,0 +1,109 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.BenchmarkApplication;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 상품 재고를 여러 스레드가 동시에 뺄 때 - 조건부 UPDATE vs 비관적 락(select ... for update + dirty checking)
+ * - conditionalUpdate: ItemRepository.removeStock (UPDATE 1번, row 락은 UPDATE ~ 커밋 사이만)
+ * - pessimisticLock: 락을 잡고 읽은 뒤 엔티티를 바꿔서 커밋 시 UPDATE (SELECT + UPDATE, row 락은 SELECT ~ 커밋)
+ * - 두 방식 모두 초과 판매가 없는 것은 StockConcurrencyTest에서 검증한다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=StockUpdate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class StockUpdateBenchmark {
+
+    private static final int THREADS = 8;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate tx;
+    private EntityManager em;
+    private ItemRepository itemRepository;
+    private Long conditionalItemId;
+    private Long lockingItemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.run(benchmarkProperties());
+
+        tx = context.getBean(TransactionTemplate.class);
+        em = context.getBean(EntityManager.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        conditionalItemId = tx.execute(status -> createBook("conditional-book"));
+        lockingItemId = tx.execute(status -> createBook("locking-book"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean conditionalUpdate() {
+        return tx.execute(status -> {
+            Item item = itemRepository.findOne(conditionalItemId);
+            itemRepository.removeStock(item, 1);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public Boolean pessimisticLock() {
+        return tx.execute(status -> {
+            Item item = em.find(Item.class, lockingItemId, LockModeType.PESSIMISTIC_WRITE);
+            item.removeStock(1);
+            return true;
+        });
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE / 2); //측정 중에 품절되지 않도록
+        em.persist(book);
+        return book.getId();
+    }
+
+    private Map<String, Object> benchmarkProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:jmh-stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"); //락 대기가 기본 1초를 넘을 수 있다.
+        properties.put("spring.datasource.hikari.maximum-pool-size", String.valueOf(THREADS)); //커넥션 대기가 아니라 row 락 경합을 재도록
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("decorator.datasource.enabled", "false"); //p6spy 로깅 끄기
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "off");
+        return properties;
+    }
+}
@@ -0,0 +1,258 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.service.CategoryTreeCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 대량 데이터 생성기 (bulk 프로필, InitDb 대신 실행)
+ * - 회원, 상품(Book/Album/Movie), 카테고리, 주문을 수백만 건 단위로 넣는다. 건수는 application-bulk.yml
+ * - 엔티티를 하나씩 persist 하지 않고 JDBC 배치 INSERT를 청크 단위로 여러 스레드에서 동시에 실행한다.
+ * - 같은 seed면 같은 데이터가 만들어진다. 청크마다 (seed, 테이블, 청크 번호)로 만든 난수를 쓰므로 스레드 실행 순서와 상관없다.
+ * - 인기 상품/활동 많은 회원에 주문이 몰리도록 멱함수 분포로 고른다. (id가 작을수록 많이 팔림)
+ * - id를 직접 넣으므로 빈 스키마(ddl-auto: create)에서만 실행하고, 끝나면 시퀀스를 넣은 id 다음 값으로 옮긴다.
+ */
+@Slf4j
+@Component
+@Profile("bulk")
+public class BulkDataGenerator implements ApplicationRunner {
+
+    private static final int ROOT_CATEGORIES = 20;
+    private static final String[][] CITIES = {
+            {"서울", "테헤란로", "06236"},
+            {"서울", "강남대로", "06611"},
+            {"부산", "달맞이로", "48117"},
+            {"대구", "동대구로", "41260"},
+            {"인천", "송도과학로", "21984"},
+            {"광주", "상무대로", "61949"},
+            {"대전", "대학로", "34134"},
+            {"수원", "광교중앙로", "16514"},
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryTreeCache categoryTreeCache;
+    private final long seed;
+    private final int members;
+    private final int items;
+    private final int categories;
+    private final int orders;
+    private final int maxItemsPerOrder;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int idIncrementSize;
+
+    public BulkDataGenerator(JdbcTemplate jdbcTemplate,
+                             CategoryTreeCache categoryTreeCache,
+                             @Value("${jpashop.bulk.seed:42}") long seed,
+                             @Value("${jpashop.bulk.members:1000000}") int members,
+                             @Value("${jpashop.bulk.items:100000}") int items,
+                             @Value("${jpashop.bulk.categories:200}") int categories,
+                             @Value("${jpashop.bulk.orders:2000000}") int orders,
+                             @Value("${jpashop.bulk.max-items-per-order:5}") int maxItemsPerOrder,
+                             @Value("${jpashop.bulk.chunk-size:10000}") int chunkSize,
+                             @Value("${jpashop.bulk.parallelism:4}") int parallelism,
+                             @Value("${spring.jpa.properties.jpashop.id.increment_size:50}") int idIncrementSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryTreeCache = categoryTreeCache;
+        this.seed = seed;
+        this.members = members;
+        this.items = items;
+        this.categories = Math.max(categories, ROOT_CATEGORIES);
+        this.orders = orders;
+        this.maxItemsPerOrder = maxItemsPerOrder;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.idIncrementSize = idIncrementSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Long existing = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("대량 데이터는 빈 DB에서만 생성할 수 있습니다. (ddl-auto: create)");
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            runChunks(executor, "member", members, this::insertMembers);
+            runChunks(executor, "item", items, this::insertItems);
+            insertCategories(); //수백 건이라 한 번에
+            runChunks(executor, "category_item", items, this::insertCategoryItems);
+            runChunks(executor, "orders", orders, this::insertOrders);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        restartSequence("member_seq", members);
+        restartSequence("item_seq", items);
+        restartSequence("category_seq", categories);
+        restartSequence("category_closure_seq", categories * 2L);
+        restartSequence("orders_seq", orders);
+        restartSequence("delivery_seq", orders);
+        restartSequence("order_item_seq", (long) orders * maxItemsPerOrder + maxItemsPerOrder);
+
+        categoryTreeCache.invalidate(); //JDBC로 넣은 카테고리는 엔티티 리스너가 모름
+
+        log.info("대량 데이터 생성 완료: 회원 {}, 상품 {}, 카테고리 {}, 주문 {} ({}ms)",
+                members, items, categories, orders, System.currentTimeMillis() - start);
+    }
+
+    private interface ChunkWriter {
+        void write(long fromId, long toId, SplittableRandom random); //[fromId, toId]
+    }
+
+    /* 1 ~ total 범위를 청크로 나눠서 병렬 실행 */
+    private void runChunks(ExecutorService executor, String table, long total, ChunkWriter writer)
+            throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        int salt = table.hashCode();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long from = 1, chunk = 0; from <= total; from += chunkSize, chunk++) {
+            long fromId = from;
+            long toId = Math.min(from + chunkSize - 1, total);
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003L + salt * 7_919L + chunk);
+            tasks.add(() -> {
+                writer.write(fromId, toId, random);
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get(); //청크 하나라도 실패하면 예외
+        }
+        log.info("{} {}건 ({}ms)", table, total, System.currentTimeMillis() - start);
+    }
+
+    private void insertMembers(long fromId, long toId, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            String[] address = CITIES[random.nextInt(CITIES.length)];
+            rows.add(new Object[]{id, "member-" + id, address[0], address[1] + " " + random.nextInt(1, 500), address[2]});
+        }
+        jdbcTemplate.batchUpdate("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+    }
+
+    /* 상품 종류 비율 Book 60%, Album 20%, Movie 20% */
+    private void insertItems(long fromId, long toId, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            int kind = (int) (id % 10);
+            String dtype = kind < 6 ? "B" : kind < 8 ? "A" : "M";
+            String name = ("B".equals(dtype) ? "book-" : "A".equals(dtype) ? "album-" : "movie-") + id;
+            int stock = random.nextInt(100, 10_000);
+            rows.add(new Object[]{dtype, id, name, priceOf(id), stock, 0,
+                    "B".equals(dtype) ? "author-" + random.nextInt(1, 5_000) : null,
+                    "B".equals(dtype) ? String.valueOf(9_780_000_000_000L + id) : null,
+                    "A".equals(dtype) ? "artist-" + random.nextInt(1, 2_000) : null,
+                    null,
+                    "M".equals(dtype) ? "director-" + random.nextInt(1, 1_000) : null,
+                    "M".equals(dtype) ? "actor-" + random.nextInt(1, 5_000) : null});
+        }
+        jdbcTemplate.batchUpdate("insert into item (dtype, item_id, name, price, stock_quantity, stock_shard_count," +
+                " author, isbn, artist, etc, director, actor) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /* 루트 카테고리 20개, 나머지는 루트 중 하나의 자식 */
+    private void insertCategories() {
+        SplittableRandom random = new SplittableRandom(seed * 1_000_003L + "category".hashCode());
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> closures = new ArrayList<>();
+        for (long id = 1; id <= categories; id++) {
+            Long parentId = id <= ROOT_CATEGORIES ? null : (long) random.nextInt(1, ROOT_CATEGORIES + 1);
+            rows.add(new Object[]{id, "category-" + id, parentId});
+            closures.add(new Object[]{id, id, id, 0}); //자기 자신 (클로저 id = 카테고리 id)
+            if (parentId != null) {
+                closures.add(new Object[]{categories + id, parentId, id, 1}); //2단계 트리라서 조상은 부모 하나 (클로저 id = 카테고리 수 + 자식 id)
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into category (category_id, name, parent_id) values (?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("insert into category_closure (category_closure_id, ancestor_id, descendant_id, depth) values (?, ?, ?, ?)", closures);
+    }
+
+    /* 상품마다 하위 카테고리 1~2개 */
+    private void insertCategoryItems(long fromId, long toId, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>();
+        int leaves = categories - ROOT_CATEGORIES;
+        for (long itemId = fromId; itemId <= toId; itemId++) {
+            long first = leaves > 0 ? ROOT_CATEGORIES + 1 + random.nextInt(leaves) : 1 + random.nextInt(categories);
+            rows.add(new Object[]{first, itemId});
+            if (leaves > 1 && random.nextInt(4) == 0) {
+                long second = ROOT_CATEGORIES + 1 + random.nextInt(leaves);
+                if (second != first) {
+                    rows.add(new Object[]{second, itemId});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into category_item (category_id, item_id) values (?, ?)", rows);
+    }
+
+    /*
+     * 주문 - 배송(주문 id와 같은 id), 주문, 주문상품 순서로 넣는다. (FK)
+     * - 주문상품 id는 주문 id * 주문당 최대 상품 수 + 순번 (청크끼리 id가 겹치지 않게)
+     * - 최근 1년 사이 주문, 10%는 취소. 3일 지난 주문은 배송 완료
+     * */
+    private void insertOrders(long fromId, long toId, SplittableRandom random) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> deliveries = new ArrayList<>();
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> orderItems = new ArrayList<>();
+        for (long orderId = fromId; orderId <= toId; orderId++) {
+            long memberId = skewed(random, members, 2.0);
+            LocalDateTime orderDate = now.minusSeconds(random.nextLong(365L * 24 * 60 * 60));
+            boolean canceled = random.nextInt(10) == 0;
+            boolean delivered = !canceled && orderDate.isBefore(now.minusDays(3));
+
+            String[] address = CITIES[random.nextInt(CITIES.length)];
+            deliveries.add(new Object[]{orderId, address[0], address[1] + " " + random.nextInt(1, 500), address[2],
+                    delivered ? "COMP" : "READY"});
+
+            int lines = random.nextInt(1, maxItemsPerOrder + 1);
+            int totalPrice = 0;
+            int itemCount = 0;
+            for (int line = 0; line < lines; line++) {
+                long itemId = skewed(random, items, 3.0);
+                int price = priceOf(itemId);
+                int count = random.nextInt(1, 4);
+                orderItems.add(new Object[]{orderId * maxItemsPerOrder + line, orderId, itemId, price, count});
+                totalPrice += price * count;
+                itemCount += count;
+            }
+            orderRows.add(new Object[]{orderId, memberId, orderId, Timestamp.valueOf(orderDate), canceled ? "CANCEL" : "ORDER",
+                    totalPrice, itemCount});
+        }
+        jdbcTemplate.batchUpdate("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+        jdbcTemplate.batchUpdate("insert into orders (order_id, member_id, delivery_id, order_date, status, total_price, item_count) values (?, ?, ?, ?, ?, ?, ?)", orderRows);
+        jdbcTemplate.batchUpdate("insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)", orderItems);
+    }
+
+    /* 1 ~ n 중 작은 값이 많이 나오는 멱함수 분포 (exponent가 클수록 쏠림이 심함) */
+    private static long skewed(SplittableRandom random, long n, double exponent) {
+        return 1 + Math.min(n - 1, (long) (n * Math.pow(random.nextDouble(), exponent)));
+    }
+
+    /* 주문상품 가격을 상품 가격과 맞추기 위해 id로 정해지는 가격 (1,000 ~ 100,000원, 100원 단위) */
+    private int priceOf(long itemId) {
+        return 1_000 + new SplittableRandom(seed ^ (itemId * 0x9E3779B97F4A7C15L)).nextInt(991) * 100;
+    }
+
+    /* pooled 옵티마이저는 시퀀스 값을 할당 범위의 끝으로 쓰므로, 다음 범위가 lastId + 1부터 시작하도록 맞춘다. */
+    private void restartSequence(String sequence, long lastId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (lastId + idIncrementSize));
+    }
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +21,7 @@ import javax.persistence.EntityManager;
    * SPRING2 BOOK
  * */
 @Component // 1. 컴포넌트 스캔됨.
+@Profile("!bulk") // bulk 프로필에서는 BulkDataGenerator가 대신 데이터를 만든다.
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -0,0 +1,60 @@
+package jpabook.jpashop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 주문 합계 컬럼(orders.total_price, orders.item_count) 채우기 (backfill 프로필)
+ * - 컬럼을 추가하기 전에 들어간 주문은 합계가 0이다. 주문상품이 없는 주문은 없으므로 item_count = 0 인 주문만 다시 계산한다.
+ *   (컬럼 추가: alter table orders add column total_price integer default 0 not null, item_count도 같은 방식)
+ * - id 범위를 청크로 나눠 UPDATE 한다. 문장마다 커밋되므로 한 번에 긴 트랜잭션/락을 잡지 않고, 중간에 멈춰도 다시 실행하면 된다.
+ */
+@Slf4j
+@Component
+@Profile("backfill")
+public class OrderTotalBackfill implements ApplicationRunner {
+
+    private static final String UPDATE_SQL = "update orders o set" +
+            " total_price = (select coalesce(sum(oi.order_price * oi.count), 0) from order_item oi where oi.order_id = o.order_id)," +
+            " item_count = (select coalesce(sum(oi.count), 0) from order_item oi where oi.order_id = o.order_id)" +
+            " where o.order_id between ? and ? and o.item_count = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public OrderTotalBackfill(JdbcTemplate jdbcTemplate,
+                              @Value("${jpashop.backfill.chunk-size:10000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    /* 갱신한 주문 수를 반환 */
+    public long backfill() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(order_id) as min_id, max(order_id) as max_id from orders");
+        Number minId = (Number) range.get("min_id");
+        Number maxId = (Number) range.get("max_id");
+        if (minId == null) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        long updated = 0;
+        for (long from = minId.longValue(); from <= maxId.longValue(); from += chunkSize) {
+            updated += jdbcTemplate.update(UPDATE_SQL, from, from + chunkSize - 1);
+        }
+        log.info("주문 합계 backfill {}건 ({}ms)", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * API 예외 응답
+ * - IllegalArgumentException(잘못된 커서, 없는 카테고리, 범위가 잘못된 날짜 등 요청 값 문제)은 500 대신 400과 사유를 돌려준다.
+ * - 화면 컨트롤러(jpabook.jpashop.controller)에는 적용하지 않는다.
+ */
+@RestControllerAdvice(basePackageClasses = ApiExceptionAdvice.class)
+public class ApiExceptionAdvice {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ErrorResponse {
+        private String message;
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheApiController {
+
+    private static final List<String> REGIONS = Arrays.asList("item", "member"); //ehcache.xml, 엔티티의 @Cache(region)
+
+    private final EntityManagerFactory emf;
+
+    /*
+     * 2차 캐시 통계 - cache 프로필에서만 값이 쌓인다. (hibernate.generate_statistics)
+     * */
+    @GetMapping("/api/cache/stats")
+    public CacheStatsResponse cacheStats() {
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        boolean enabled = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()
+                && statistics.isStatisticsEnabled();
+        if (!enabled) {
+            return new CacheStatsResponse(false, 0, 0, 0, Collections.emptyList());
+        }
+
+        List<RegionStatsDto> regions = REGIONS.stream()
+                .map(region -> new RegionStatsDto(region, statistics.getDomainDataRegionStatistics(region)))
+                .collect(toList());
+        return new CacheStatsResponse(true,
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                regions);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheStatsResponse {
+        private boolean enabled;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private List<RegionStatsDto> regions;
+    }
+
+    @Data
+    static class RegionStatsDto {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCountInMemory;
+
+        public RegionStatsDto(String region, CacheRegionStatistics statistics) {
+            this.region = region;
+            hitCount = statistics.getHitCount();
+            missCount = statistics.getMissCount();
+            putCount = statistics.getPutCount();
+            elementCountInMemory = statistics.getElementCountInMemory();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CategoryService categoryService;
+
+    /*
+     * 카테고리 트리 전체 - 메모리 스냅샷에서 바로 응답 (DB 조회 없음)
+     * */
+    @GetMapping("/api/categories")
+    public List<CategoryNodeDto> categories() {
+        return categoryService.tree().getRoots().stream()
+                .map(CategoryNodeDto::new)
+                .collect(toList());
+    }
+
+    @PostMapping("/api/categories")
+    public CreateCategoryResponse createCategory(@RequestBody @Valid CreateCategoryRequest request) {
+        return new CreateCategoryResponse(categoryService.create(request.getName(), request.getParentId()));
+    }
+
+    /*
+     * 카테고리 아래(하위 카테고리 포함) 상품 - 쿼리 1번
+     * */
+    @GetMapping("/api/categories/{id}/items")
+    public List<CategoryItemDto> categoryItems(@PathVariable("id") Long id,
+                                               @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return categoryService.findItems(id, Math.max(0, offset), Math.max(1, Math.min(limit, MAX_PAGE_SIZE))).stream()
+                .map(CategoryItemDto::new)
+                .collect(toList());
+    }
+
+    @Data
+    static class CategoryNodeDto {
+        private Long id;
+        private String name;
+        private String path;
+        private List<CategoryNodeDto> children;
+
+        CategoryNodeDto(CategoryTree.Node node) {
+            id = node.getId();
+            name = node.getName();
+            path = node.getPath();
+            children = node.getChildren().stream()
+                    .map(CategoryNodeDto::new)
+                    .collect(toList());
+        }
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+
+        CategoryItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+}
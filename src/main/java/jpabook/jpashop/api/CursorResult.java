@@ -0,0 +1,18 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 키셋 페이징 응답 껍데기
+ * - next 커서를 그대로 다음 요청의 after 파라미터로 넘기면 다음 페이지를 조회한다.
+ */
+@Data
+@AllArgsConstructor
+public class CursorResult<T> {
+    private int count;
+    private List<T> data;
+    private String next;  //다음 페이지 커서. 마지막 페이지면 null
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitoring.ExplainAnalyzer;
+import jpabook.jpashop.monitoring.ExplainCaptureListener;
+import jpabook.jpashop.monitoring.ExplainReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+ * 풀스캔 쿼리 리포트 (개발/테스트용, jpashop.explain.enabled=true 일 때만)
+ * - 화면/API를 한 번씩 눌러본 뒤 조회하면 지금까지 실행된 SELECT 모양별로 EXPLAIN ANALYZE를 돌려서 보여준다.
+ * */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jpashop.explain.enabled", havingValue = "true")
+public class ExplainApiController {
+
+    private final ExplainAnalyzer explainAnalyzer;
+    private final ExplainCaptureListener explainCaptureListener;
+
+    @GetMapping("/api/dev/explain")
+    public ExplainReport explain() {
+        return explainAnalyzer.analyze();
+    }
+
+    /* 모은 SQL 비우기 - 특정 화면의 쿼리만 보고 싶을 때 */
+    @DeleteMapping("/api/dev/explain")
+    public void clear() {
+        explainCaptureListener.clear();
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemSearch;
+import jpabook.jpashop.repository.item.query.ItemListDto;
+import jpabook.jpashop.service.ItemImportResult;
+import jpabook.jpashop.service.ItemImportService;
+import jpabook.jpashop.service.ItemPage;
+import jpabook.jpashop.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ItemService itemService;
+    private final ItemImportService itemImportService;
+
+    /**
+     * 상품 목록 (키셋 페이징)
+     * - 필터: minPrice, maxPrice, dtype(B, A, M) / 정렬: sort=ID(기본) 또는 NAME
+     * - next 커서를 after로 넘기면 다음 페이지. 정렬을 바꾸면 커서도 처음부터 다시 받아야 한다.
+     */
+    @GetMapping("/api/items")
+    public CursorResult<ItemListDto> items(ItemSearch itemSearch,
+                                           @RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        ItemPage page = itemService.findItemPage(itemSearch, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return new CursorResult<>(page.getItems().size(), page.getItems(), page.getNext());
+    }
+
+    /**
+     * 상품 CSV 일괄 등록/수정 (multipart 업로드, 파라미터명 file)
+     * - 업로드 파일은 임시 파일에 저장되고, 그 스트림을 한 줄씩 읽어서 처리한다.
+     */
+    @PostMapping(value = "/api/items/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ItemImportResult importItems(@RequestParam("file") MultipartFile file) throws IOException {
+        return itemImportService.importCsv(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 상품 CSV 일괄 등록/수정 (요청 본문이 CSV, Content-Type: text/csv)
+     * - 요청 스트림을 그대로 읽으므로 업로드 크기 제한, 임시 파일 없이 처리된다.
+     */
+    @PostMapping(value = "/api/items/import", consumes = "text/csv")
+    public ItemImportResult importItemsStream(HttpServletRequest request) throws IOException {
+        return itemImportService.importCsv(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 재고 샤딩
+     * - 주문이 몰리는 상품의 재고를 shardCount개의 row로 나눠서 재고 차감 경합을 분산시킨다.
+     * - 이미 샤딩된 상품이면 현재 재고를 새 샤드 수로 다시 나눈다.
+     */
+    @PostMapping("/api/items/{id}/stock-shards")
+    public StockShardResponse shardStock(@PathVariable("id") Long id,
+                                         @RequestBody @Valid StockShardRequest request) {
+        itemService.shardStock(id, request.getShardCount());
+        Item item = itemService.findOne(id);
+        return new StockShardResponse(item.getId(), item.getStockShardCount(), item.getStockQuantity());
+    }
+
+    /**
+     * 재고 샤딩 해제 - 샤드 재고를 합쳐서 다시 한 row로 관리한다.
+     */
+    @DeleteMapping("/api/items/{id}/stock-shards")
+    public StockShardResponse unshardStock(@PathVariable("id") Long id) {
+        itemService.unshardStock(id);
+        Item item = itemService.findOne(id);
+        return new StockShardResponse(item.getId(), item.getStockShardCount(), item.getStockQuantity());
+    }
+
+    @Data
+    static class StockShardRequest {
+        @Min(1)
+        private int shardCount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class StockShardResponse {
+        private Long id;
+        private int shardCount;
+        private int stockQuantity; //전체 샤드 재고의 합
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.lookup.NameLookup;
+import jpabook.jpashop.lookup.NameMatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * 주문 화면 자동완성 - 이름 앞부분(대소문자 무시)으로 회원/상품 id 찾기
+ * - DB를 조회하지 않고 메모리 인덱스(NameLookup)에서 찾는다.
+ * - 빈 prefix는 전체 목록을 훑는 것과 같으므로 빈 결과를 돌려준다.
+ * */
+@RestController
+@RequiredArgsConstructor
+public class LookupApiController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final NameLookup nameLookup;
+
+    @GetMapping("/api/lookup/members")
+    public List<NameMatch> members(@RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return nameLookup.searchMembers(prefix, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @GetMapping("/api/lookup/items")
+    public List<NameMatch> items(@RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                 @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return nameLookup.searchItems(prefix, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
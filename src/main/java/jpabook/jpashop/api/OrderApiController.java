@@ -4,29 +4,56 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatFolder;
+import jpabook.jpashop.repository.order.query.OrderListDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderBatchResult;
+import jpabook.jpashop.service.OrderCancelResult;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.OrderExportService;
+import jpabook.jpashop.service.query.OrderPage;
 import jpabook.jpashop.service.query.OrderQueryService;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static java.util.stream.Collectors.*;
 
+/*
+ * 엔티티를 조회하는 GET(v1 ~ v3.2)은 OSIV 영속성 컨텍스트에서 트랜잭션 없이 리포지토리를 바로 부르므로 @ReadOnlyQuery로 조회한다.
+ * 클래스에 붙이지 않는 이유: POST(일괄 주문/취소)까지 읽기 전용 세션으로 서비스를 부르면 서비스에서 조회한 엔티티의 변경이 flush되지 않는다.
+ * */
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
 
@@ -36,6 +63,7 @@ public class OrderApiController {
      * - 양방향 관계 문제 발생 -> @JsonIgnore
      */
     @GetMapping("/api/v1/orders")
+    @ReadOnlyQuery
     public List<Order> ordersV1() {
         List<Order> all = orderRepository.findAllByString(new OrderSearch());
         for (Order order : all) {
@@ -55,6 +83,7 @@ public class OrderApiController {
      */
     //엔티티를 외부에 노출시키지 말라는 뜻은, 단순히 Dto로 감싸는 걸로 끝내라는 말이 아니라, 의존관계에 엮인 모든 Entity를 Dto로 전부 바꿔서 써야한다는 뜻이다.
     @GetMapping("/api/v2/orders")
+    @ReadOnlyQuery
     public List<OrderDto> ordersV2() { // N+1
         List<Order> orders = orderRepository.findAllByString(new OrderSearch()); //Entity에서 orders 조회 (Entity 타입)
         List<OrderDto> result = orders.stream()  //Entity에서 Dto로 변환
@@ -69,6 +98,7 @@ public class OrderApiController {
      * - 페이징 시에는 N 부분을 포기해야함(대신에 batch fetch size? 옵션 주면 N -> 1 쿼리로 변경 가능)
      */
     @GetMapping("/api/v3/orders")
+    @ReadOnlyQuery
     public List<OrderDto> ordersV3() { //쿼리가 1번 나감.
         List<Order> orders = orderRepository.findAllWithItem();
 
@@ -86,6 +116,7 @@ public class OrderApiController {
      * batch size 옵션을 사용하면, 컬렉션이나, 프록시 객체를 한꺼번에 설정한 size 만큼 IN 쿼리로 조회한다.
      */
     @GetMapping("/api/v3.1/orders")
+    @ReadOnlyQuery
     public List<OrderDto> ordersV3_page(@RequestParam(value = "offset", defaultValue = "0") int offset,
                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
 
@@ -98,6 +129,34 @@ public class OrderApiController {
         return result;
     }
 
+    /**
+     * V3.2 V3.1과 같은 조회 방식에 offset 대신 키셋(seek) 페이징 적용
+     * - after=<커서> 로 마지막으로 받은 주문 다음부터 조회한다. (첫 페이지는 after 생략)
+     * - 컬렉션(orderItems)은 그대로 default_batch_fetch_size로 IN 쿼리 조회하므로, 10,000번째 페이지도 첫 페이지와 쿼리 비용이 같다.
+     */
+    @GetMapping("/api/v3.2/orders")
+    @ReadOnlyQuery
+    public CursorResult<OrderDto> ordersV3_cursor(@RequestParam(value = "after", required = false) String after,
+                                                  @RequestParam(value = "limit", defaultValue = "100") int limit) {
+
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE)); //0이나 음수, 너무 큰 값이 그대로 쿼리로 가지 않도록
+
+        //다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(OrderCursor.decode(after), limit + 1);
+
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+
+        List<OrderDto> result = orders.stream()
+                .map(OrderDto::new)
+                .collect(toList());
+
+        String next = hasNext ? OrderCursor.of(orders.get(orders.size() - 1)).encode() : null;
+        return new CursorResult<>(result.size(), result, next);
+    }
+
     /*
      *  V4. JPA에서 DTO로 바로 조회, 컬렉션 N 조회 (1 + N Query)
      * - 페이징 가능
@@ -122,22 +181,14 @@ public class OrderApiController {
      * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
      * - 페이징 불가능! (데이터 row가 多쪽으로 뻥튀기 되므로)
      *쿼리는 한번이지만 조인으로 인해 DB에서 애플리케이션에 전달하는 데이터에 중복 데이터가 추가되므로 상황에 따라(가져오는 양이 클 때) V5 보다 더 느릴 수 도 있다.
+     * - 주문 id 순으로 정렬해서 가져온 뒤, 인접한 같은 주문의 row를 한 번에 접는다. (groupingBy 대신. 결과 순서도 주문 id 순으로 고정)
      **/
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
         List<OrderFlatDto> flats = orderQueryRepository.findAllbyDto_flat();// 데이터 중복이 발생! 수작업으로 중복제거 해야함.
 
         //OrderFlatDto를 OrderQueryDto 형태로 loop 돌면서 직접 변환
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),  //Dto에서 EqualsAndHashCode 기준 설정
-                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
-                                o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(), e.getValue())) //e.getValue()로 위에서 만든 컬렉션(OrderQueryItemDto)를 가져옴
-                .collect(toList());
+        return OrderFlatFolder.fold(flats);
     }
 
 
@@ -152,6 +203,120 @@ public class OrderApiController {
     }
 
 
+    /**
+     * 주문 검색 (키셋 페이징)
+     * - 필터: memberName(앞부분 일치), orderStatus, orderDateFrom/orderDateTo(yyyy-MM-dd, 포함), itemId, minTotalPrice, deliveryStatus
+     * - 정렬: sort=LATEST(기본), OLDEST, TOTAL_PRICE
+     * - 요청한 페이지만 DTO로 조회한다. next 커서를 after로 넘기면 다음 페이지. 정렬을 바꾸면 커서도 처음부터 다시 받아야 한다.
+     */
+    @GetMapping("/api/orders/search")
+    public CursorResult<OrderListDto> searchOrders(OrderSearch orderSearch,
+                                                   @RequestParam(value = "after", required = false) String after,
+                                                   @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        OrderPage page = orderQueryService.findOrderPage(orderSearch, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return new CursorResult<>(page.getOrders().size(), page.getOrders(), page.getNext());
+    }
+
+
+    private final OrderExportService orderExportService;
+
+    /*
+     * 주문 전체 내보내기 (NDJSON, 한 줄에 주문 1건)
+     * - List<OrderQueryDto>로 반환하면 전체 주문이 힙에 올라간 뒤 직렬화되므로, 응답 스트림에 직접 쓴다.
+     * - 주문 수와 상관없이 힙 사용량이 일정하다.
+     * */
+    @GetMapping(value = "/api/orders/export", produces = "application/x-ndjson")
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        orderExportService.exportNdjson(response.getOutputStream());
+    }
+
+
+    private final OrderService orderService;
+
+    /*
+     * 일괄 주문 - 여러 주문(주문마다 여러 상품)을 요청 한 번, 트랜잭션 한 번으로 처리
+     * - 주문별 성공/실패를 요청 순서(index)대로 돌려준다. 일부 주문이 실패해도 나머지는 저장된다.
+     * */
+    @PostMapping("/api/orders/batch")
+    public OrderBatchResponse orderBatch(@RequestBody @Valid OrderBatchRequest request) {
+        List<OrderBatchCommand> commands = request.getOrders().stream()
+                .map(order -> new OrderBatchCommand(order.getMemberId(), order.getLines().stream()
+                        .map(line -> new OrderBatchCommand.Line(line.getItemId(), line.getCount()))
+                        .collect(toList())))
+                .collect(toList());
+
+        List<OrderBatchResult> results = orderService.orderBatch(commands);
+        int successCount = (int) results.stream().filter(OrderBatchResult::isSuccess).count();
+        return new OrderBatchResponse(successCount, results.size() - successCount, results);
+    }
+
+    @Data
+    static class OrderBatchRequest {
+        @NotEmpty
+        @Valid
+        private List<OrderRequest> orders;
+    }
+
+    @Data
+    static class OrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        @Valid
+        private List<OrderLineRequest> lines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Min(1)
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderBatchResponse {
+        private int successCount;
+        private int failureCount;
+        private List<OrderBatchResult> results;
+    }
+
+    /*
+     * 일괄 취소 - 주문 id 목록 또는 검색 조건(회원 이름, 주문 상태)으로 대상 지정
+     * - 배송 완료된 주문은 취소되지 않고 rejections에 사유가 담긴다.
+     * */
+    @PostMapping("/api/orders/cancel")
+    public OrderCancelResult cancelOrders(@RequestBody @Valid CancelOrdersRequest request) {
+        if (request.hasOrderIds()) {
+            return orderService.cancelOrders(request.getOrderIds());
+        }
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(request.getMemberName());
+        orderSearch.setOrderStatus(request.getOrderStatus());
+        return orderService.cancelOrders(orderSearch);
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @Size(max = OrderService.MAX_BULK_CANCEL)
+        private List<Long> orderIds;
+        private String memberName;
+        private OrderStatus orderStatus;
+
+        boolean hasOrderIds() {
+            return orderIds != null && !orderIds.isEmpty();
+        }
+
+        @AssertTrue(message = "orderIds 또는 검색 조건(memberName, orderStatus)이 필요합니다.")
+        boolean isTargetSpecified() { //검색 조건 없이 전체 주문이 취소되는 것을 막는다.
+            return hasOrderIds() || StringUtils.hasText(memberName) || orderStatus != null;
+        }
+    }
+
+
     //    No serializer found for class jpabook.jpashop.api.OrderApiController$OrderDto and no properties discovered to create BeanSerializer
     //    오류 중 no properties는 대부분 getter setter 가 없어서 발생.
     @Data
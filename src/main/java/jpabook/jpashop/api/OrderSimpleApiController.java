@@ -7,6 +7,7 @@ import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.support.ReadOnlyQuery;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -37,6 +38,7 @@ public class OrderSimpleApiController {
      * - 양방향 연관관계 문제
      */
     @GetMapping("/api/v1/simple-orders")
+    @ReadOnlyQuery
     public List<Order> ordersV1() { //연관된 관계가 얽혀있을 때, Entity를 직접 호출하면 무슨 일이 발생하는지 보여주기 위함.
         List<Order> all = orderRepository.findAllByString(new OrderSearch());  //모든 주문 들고오기
         for (Order order : all) {
@@ -55,6 +57,7 @@ public class OrderSimpleApiController {
      * order -> delivery 지연 로딩 조회 N 번
      */
     @GetMapping("/api/v2/simple-orders")
+    @ReadOnlyQuery
     public List<SimpleOrderDto> ordersV2() { // List로 반환하지 말고 Result 객체를 생성하여 한 번 감싸서 반환할 것. 예제라서 생략.
         //ORDER 2개 // N+1 문제 발생! => ORDER 조회 1 + 회원 N(ORDER 개수가 2개이므로 N =2) + 배송 N
         /*EAGER로 해결이 안되는 이유 : 일단 처음 ORDER를 들고옴 -> 까보니 연관관계에 EAGER가 있음을 발견 -> 한 번에 들고 오려고 수많은 쿼리가 날아감*/
@@ -73,6 +76,7 @@ public class OrderSimpleApiController {
      * 참고: fetch join에 대한 자세한 내용은 JPA 기본편 참고(정말 중요함)
      */
     @GetMapping("/api/v3/simple-orders")
+    @ReadOnlyQuery
     public List<SimpleOrderDto> ordersV3() {
         List<Order> orders = orderRepository.findAllWithMemberDelivery();
         List<SimpleOrderDto> result = orders.stream()
@@ -0,0 +1,66 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.query.DaySalesDto;
+import jpabook.jpashop.service.query.ItemSalesDto;
+import jpabook.jpashop.service.query.SalesReportService;
+import jpabook.jpashop.service.query.StatusSalesDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 매출 리포트 API - /api/v6/orders 결과를 받아서 엑셀로 집계하던 것을 DB 집계로 대체
+ * - 기간은 [from, to) (to 미포함), 생략하면 오늘까지 최근 30일
+ * - 예) /api/reports/sales/items?from=2022-05-01&to=2022-06-01&limit=20
+ */
+@RestController
+@RequiredArgsConstructor
+public class SalesReportApiController {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_LIMIT = 1000;
+
+    private final SalesReportService salesReportService;
+
+    /* 상품별 매출 - 매출 높은 순 */
+    @GetMapping("/api/reports/sales/items")
+    public List<ItemSalesDto> salesByItem(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        LocalDate end = endOf(to);
+        return salesReportService.salesByItem(startOf(from, end), end, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    /* 일별 매출 */
+    @GetMapping("/api/reports/sales/daily")
+    public List<DaySalesDto> salesByDay(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = endOf(to);
+        return salesReportService.salesByDay(startOf(from, end), end);
+    }
+
+    /* 주문 상태별 금액, 수량 (취소 포함) */
+    @GetMapping("/api/reports/sales/statuses")
+    public List<StatusSalesDto> salesByStatus(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = endOf(to);
+        return salesReportService.salesByStatus(startOf(from, end), end);
+    }
+
+    private static LocalDate endOf(LocalDate to) {
+        return to != null ? to : LocalDate.now().plusDays(1);
+    }
+
+    private static LocalDate startOf(LocalDate from, LocalDate end) {
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from은 to보다 앞선 날짜여야 합니다.");
+        }
+        return start;
+    }
+}
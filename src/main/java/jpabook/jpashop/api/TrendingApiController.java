@@ -0,0 +1,30 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.query.TrendingItemDto;
+import jpabook.jpashop.service.query.TrendingItemService;
+import jpabook.jpashop.trending.TrendingWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TrendingApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final TrendingItemService trendingItemService;
+
+    /*
+     * 실시간 인기 상품 - window: 5m, 1h, 24h
+     * - 이 인스턴스가 처리한 주문 기준 (재시작하면 초기화)
+     * */
+    @GetMapping("/api/items/trending")
+    public List<TrendingItemDto> trending(@RequestParam(value = "window", defaultValue = "1h") String window,
+                                          @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return trendingItemService.trending(TrendingWindow.of(window), Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -1,20 +1,30 @@
 package jpabook.jpashop.controller;
 
+import jpabook.jpashop.service.query.TrendingItemService;
+import jpabook.jpashop.trending.TrendingWindow;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @Controller
 @Slf4j  // Lombok으로 아래 log 생성 코드를 대체.
+@RequiredArgsConstructor
 public class HomeController {
 
+    private static final int TRENDING_ITEMS = 5;
+
+    private final TrendingItemService trendingItemService;
+
 //    Logger log = LoggerFactory.getLogger(getClass());  //org.slf4j.Logger 사용하여 이런 식으로 로거를 뽑을 수 있음. => Lombok 어노테이션으로 대체 가능.
 
     @RequestMapping("/")
-    public String home() {
+    public String home(Model model) {
         log.info("home controller");  //로그 찍기
+        model.addAttribute("trendingItems", trendingItemService.trending(TrendingWindow.ONE_HOUR, TRENDING_ITEMS)); //최근 1시간 인기 상품
         return "home";
     }
 }
@@ -1,7 +1,8 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemSearch;
+import jpabook.jpashop.service.ItemPage;
 import jpabook.jpashop.service.ItemService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -10,13 +11,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
 
+    private static final int PAGE_SIZE = 20;
+
     private final ItemService itemService;
 
     @GetMapping("/items/new")
@@ -40,10 +42,16 @@ public class ItemController {
         return "redirect:/";
     }
 
+    /*
+     * 상품 목록 - 전체 엔티티 대신 목록 컬럼만 PAGE_SIZE개씩 (키셋 페이징)
+     * */
     @GetMapping("/items")
-    public String list(Model model) {
-        List<Item> items = itemService.findItems();
-        model.addAttribute("items", items);
+    public String list(@ModelAttribute("itemSearch") ItemSearch itemSearch,
+                       @RequestParam(value = "after", required = false) String after,
+                       Model model) {
+        ItemPage page = itemService.findItemPage(itemSearch, after, PAGE_SIZE);
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("next", page.getNext());
         return "items/itemList";
     }
 
@@ -1,35 +1,28 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.OrderPage;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int PAGE_SIZE = 20;
+
     private final OrderService orderService;
-    private final MemberService memberService;
-    private final ItemService itemService;
+    private final OrderQueryService orderQueryService;
 
+    /*
+     * 주문 화면 - 회원/상품 전체를 select에 싣지 않고, 입력한 이름 앞부분으로 자동완성한다. (/api/lookup/members, /api/lookup/items)
+     * */
     @GetMapping("/order")
-    public String createForm(Model model) {
-        List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
-
-        model.addAttribute("members", members);
-        model.addAttribute("items", items);
-
+    public String createForm() {
         return "order/orderForm";
     }
 
@@ -47,11 +40,17 @@ public class OrderController {
         return "redirect:/orders";
     }
 
+    /*
+     * 주문 목록 - 엔티티 대신 화면 컬럼만 DTO로 PAGE_SIZE개씩 (쿼리 1번, 키셋 페이징)
+     * */
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);// 단순 조회일 경우 service에 위임을 굳이 할 필요는 없다.
+    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @RequestParam(value = "after", required = false) String after,
+                            Model model) {
+        OrderPage page = orderQueryService.findOrderPage(orderSearch, after, PAGE_SIZE);
 //        model.addAttribute("orderSearch", orderSearch);  // @ModelAttribute를 사용하면 자동 객체생성, Form으로 넘어온 값 자동 바인딩, model에 자동 추가 해줌. 해당 코드가 생략되어 있다고 생각하면 됨.
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", page.getOrders());
+        model.addAttribute("next", page.getNext());
 
         return "order/orderList";
     }
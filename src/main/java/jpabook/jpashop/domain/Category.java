@@ -1,6 +1,7 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.support.CategoryChangeListener;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -14,10 +15,12 @@ import static javax.persistence.FetchType.*;
 //@ManyToOne , @OneToMany 로 매핑해서 사용하자.
 
 @Entity
+@EntityListeners(CategoryChangeListener.class) //카테고리가 바뀌면 메모리의 트리 스냅샷을 다시 만든다. (CategoryTreeCache)
 @Getter @Setter
 public class Category {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "category_id")
     private Long id;
 
@@ -37,10 +40,43 @@ public class Category {
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>(); //카테고리는 여러 자식을 가지고 있다. OneToMany.
 
+    //계층을 단계별로 따라가지 않고 한 번에 조회하기 위한 클로저 테이블 (이 카테고리의 모든 조상 + 자기 자신)
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.ALL)
+    private List<CategoryClosure> ancestors = new ArrayList<>();
+
     //== 연관관계 편의 메서드 ==//
+    /*
+     * 자식 카테고리 추가 - 자식(과 그 아래 전부)에 이 카테고리와 이 카테고리의 조상들을 조상으로 추가한다.
+     * - 다른 부모 밑으로 옮기는 것은 지원하지 않는다. (옮기려면 기존 조상 row를 지우고 다시 만들어야 함)
+     * */
     public void addChildCategory(Category child) {
+        if (child.getParent() != null) {
+            throw new IllegalStateException("이미 상위 카테고리가 있는 카테고리입니다.");
+        }
         this.child.add(child);
         child.setParent(this);
+        child.linkAncestors(this, 1);
+    }
+
+    /* 저장할 때 자기 자신 row(depth 0)를 추가한다. 루트도 클로저 테이블에 있어야 "이 카테고리 아래 전부"가 조인 하나로 끝난다. */
+    @PrePersist
+    private void linkSelf() {
+        if (ancestors.stream().noneMatch(closure -> closure.getDepth() == 0)) {
+            ancestors.add(new CategoryClosure(this, this, 0));
+        }
+    }
+
+    private void linkAncestors(Category parent, int depth) {
+        ancestors.add(new CategoryClosure(parent, this, depth));
+        for (CategoryClosure closure : parent.getAncestors()) {
+            if (closure.getDepth() == 0) { //부모 자신은 위에서 추가함
+                continue;
+            }
+            ancestors.add(new CategoryClosure(closure.getAncestor(), this, closure.getDepth() + depth));
+        }
+        for (Category grandChild : child) {
+            grandChild.linkAncestors(parent, depth + 1);
+        }
     }
 }
 
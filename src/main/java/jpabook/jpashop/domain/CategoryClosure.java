@@ -0,0 +1,44 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+import static javax.persistence.FetchType.*;
+
+/**
+ * 카테고리 클로저 테이블 - (조상, 자손, 거리) 쌍을 모두 저장한다. 자기 자신 쌍도 depth 0으로 저장한다.
+ * - "이 카테고리 아래 전부(자기 자신 포함)"가 parent를 단계별로 따라가는 대신 ancestor_id 조건 하나로 끝난다.
+ * - Category.addChildCategory()와 Category 저장(@PrePersist, 자기 자신 쌍)이 만들고, Category를 저장할 때 cascade로 같이 저장된다.
+ */
+@Entity
+@Table(name = "category_closure",
+        uniqueConstraints = @UniqueConstraint(name = "uk_category_closure_ancestor_descendant", columnNames = {"ancestor_id", "descendant_id"}),
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+    @Column(name = "category_closure_id")
+    private Long id;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth; //0이면 자기 자신, 1이면 부모-자식
+
+    CategoryClosure(Category ancestor, Category descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 일별 매출 집계 (롤업) - 하루치 주문을 (날짜, 상품, 주문상태)별로 미리 더해둔 row
+ * - 지난 날짜만 저장한다. 오늘 주문은 리포트 조회 시 주문 테이블에서 바로 집계한다.
+ * - 지난 주문이 취소되면 그 날짜의 롤업을 지우고 다음 조회 때 다시 만든다. (SalesReportRepository.reopenDays)
+ */
+@Entity
+@Table(name = "daily_sales",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_sales_date_item_status", columnNames = {"sales_date", "item_id", "status"}))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailySales {
+
+    @Id
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+    @Column(name = "daily_sales_id")
+    private Long id;
+
+    private LocalDate salesDate;
+
+    private Long itemId; //집계 row라서 연관관계 대신 id만 둔다.
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private long revenue; //주문가격 * 수량의 합
+    private long units;   //수량의 합
+
+    public DailySales(LocalDate salesDate, Long itemId, OrderStatus status, long revenue, long units) {
+        this.salesDate = salesDate;
+        this.itemId = itemId;
+        this.status = status;
+        this.revenue = revenue;
+        this.units = units;
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 롤업이 끝난 날짜 - 주문이 없는 날도 다시 집계하지 않도록 DailySales와 따로 표시한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailySalesClosing {
+
+    @Id
+    private LocalDate salesDate;
+
+    private LocalDateTime closedAt;
+
+    public DailySalesClosing(LocalDate salesDate) {
+        this.salesDate = salesDate;
+        this.closedAt = LocalDateTime.now();
+    }
+}
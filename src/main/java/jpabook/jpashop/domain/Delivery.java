@@ -11,7 +11,7 @@ import javax.persistence.*;
 @Setter
 public class Delivery {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "delivery_id")
     private Long id;
 
@@ -3,6 +3,8 @@ package jpabook.jpashop.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -10,10 +12,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") //2차 캐시 (cache 프로필에서만 켜짐)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) //같은 이름 중복 가입 방지 (여러 WAS가 동시에 가입시켜도). 유니크 인덱스라 findByName, 회원명 앞부분 검색도 탄다.
 @Getter @Setter
 public class  Member {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "member_id") // 컬럼명 따로 지정. 엔티티의 식별자는 id 를 사용하고 PK 컬럼명은 member_id 사용하기 위함.
     private Long id;  // em.persist(member) => 영속성 컨텍스트에 member객체의 @Id 값이 key 로, member 엔티티가 value 형태로 저장됨. db에 들어간 시점이 아니어도 id필드에 값을 채워줌.
 
@@ -19,7 +19,12 @@ import static javax.persistence.FetchType.*;
 //        3. 대문자 => 소문자
 
 @Entity
-@Table(name = "orders") // 관례를 벗어나는 테이블명을 사용하므로 수동으로 명시해줌. // 명시 없을 시, order를 찾음.
+@Table(name = "orders", // 관례를 벗어나는 테이블명을 사용하므로 수동으로 명시해줌. // 명시 없을 시, order를 찾음.
+        indexes = { // 키셋 페이징용 인덱스. columnList는 DB 컬럼명 기준.
+                @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"), // 주문일순 (orderDate, id)
+                @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"), // 주문 상태로 거른 뒤 주문일순
+                @Index(name = "idx_orders_member_order_date", columnList = "member_id, order_date"), // 회원별 주문일순
+                @Index(name = "idx_orders_total_price_id", columnList = "total_price, order_id")}) // 주문금액순
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -47,7 +52,7 @@ public class Order {
     //    persist(order)        //order만 persist상태로 바꾸면 orderItems 엔티티의 상태도 persist로 전파되어 A,B,C 모두 저장(persist상태로 변화)됨.
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "order_id")
     private Long id;
 
@@ -73,6 +78,17 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; //주문상태 [ORDER, CANCEL]
 
+    /*
+     * 주문 합계 (역정규화) - getTotalPrice()가 orderItems를 초기화하지 않도록 주문 테이블에 같이 저장한다.
+     * - addOrderItem()에서만 바뀐다. 직접 값을 넣지 못하게 setter는 만들지 않는다.
+     * - 컬럼을 추가하기 전의 주문은 OrderTotalBackfill로 채운다.
+     * */
+    @Setter(AccessLevel.NONE)
+    private int totalPrice; //주문상품 가격 * 수량의 합
+
+    @Setter(AccessLevel.NONE)
+    private int itemCount;  //주문상품 수량의 합
+
     //==연관관계 편의 메서드==//  //한번에 양방향 관계를 설정(양방향 연관관계를 하나로 묶어주는) 메소드  //핵심적으로 컨트롤 하는 쪽에 메소드를 둔다.
     public void setMember(Member member) {
         this.member = member;
@@ -91,6 +107,8 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
+        itemCount += orderItem.getCount();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -118,28 +136,33 @@ public class Order {
      * 주문 취소
      * */
     public void cancel() { //cancel()호출시 JPA가 dirty checking해서 Order.OrderStatus, OrderItem.stockQuantity에 대한 업데이트 쿼리가 날아간다.
+        cancelReserved();
+        for (OrderItem orderItem : orderItems) { //OrderItems의 재고를 원상 복구
+            orderItem.cancel();
+        }
+    }
+
+    /*
+     * 주문 취소 - 상태만 바꾸고 재고는 호출한 쪽이 DB에서 직접 되돌린다. (createReservedOrderItem과 짝, OrderService.cancelOrder)
+     * */
+    public void cancelReserved() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL); //취소 처리
-        for (OrderItem orderItem : orderItems) { //OrderItems의 재고를 원상 복구
-            orderItem.cancel();
-        }
+        //totalPrice, itemCount는 그대로 둔다. 주문 당시 금액이고, 취소 여부는 status로 구분한다. (매출 집계 시 status 조건)
     }
 
     //==조회 로직==//
     /*
      * 전체 주문 가격 조회
+     * - 예전에는 orderItems를 돌면서 더했지만(목록 화면에서 주문마다 orderItems 초기화), 이제 저장된 합계를 반환한다.
      * */
-    public int getTotalPrice() {  //주문상품 엔티티의 가격을 모두 합한 가격 => 총 가격 구하기
-        int totalPrice = 0;
-        for (OrderItem orderItem : orderItems) {
-            totalPrice += orderItem.getTotalPrice();
-        }
+    public int getTotalPrice() {
         return totalPrice;
 
-        /* 위 코드를 자바8의 스트림으로 간단하게 표현하면 */
+        /* 예전 코드 - 주문상품 엔티티의 가격을 모두 합한 가격 */
 //        return orderItems.stream()
 //        .mapToInt(OrderItem::getTotalPrice)
 //        .sum();
@@ -14,11 +14,15 @@ import static javax.persistence.FetchType.*;
 
 //@BatchSize(size = 100)  // 컬렉션이 아닌 ToOne 관계일 때는 엔티티 클래스에 적용
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_order_item_order_id", columnList = "order_id"), //주문별 orderItems 조회 (batch fetch, v5 IN 조회, 대표상품)
+        @Index(name = "idx_order_item_item_id", columnList = "item_id")})  //상품이 들어간 주문 검색, 상품별 매출 집계
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // Lombok의 기능. 기본 생성자의 접근제한자를 protected로 설정한다.
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -42,13 +46,19 @@ public class OrderItem {
 
     //==정적 팩토리 메서드==//
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+
+        item.removeStock(count); //item의 재고에서 count만큼 빼줌
+        return orderItem;
+    }
+
+    /*재고를 이미 DB에서 차감한 경우(ItemRepository.removeStock) 엔티티 재고는 건드리지 않고 주문상품만 생성*/
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         //할인 정책이 생길 수 있기 때문에 item의 price를 orderPrice로 그대로 적용하지 않고 따로 가져간다.
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-        item.removeStock(count); //item의 재고에서 count만큼 빼줌
         return orderItem;
     }
 
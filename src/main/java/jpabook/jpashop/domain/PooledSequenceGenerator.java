@@ -0,0 +1,38 @@
+package jpabook.jpashop.domain;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 엔티티별 시퀀스 + pooled 옵티마이저 식별자 생성기
+ * - 기본 @GeneratedValue는 hibernate_sequence 하나를 모든 엔티티가 같이 쓰고, persist 할 때마다 next value 쿼리가 나간다.
+ * - increment_size(allocationSize) 만큼 시퀀스를 한 번에 올려두고 그 범위 안에서는 메모리에서 id를 꺼내 쓴다.
+ * - 시퀀스 값 자체가 범위의 끝을 나타내므로, 여러 애플리케이션 인스턴스가 같은 DB를 써도 서로 다른 범위를 받아 id가 겹치지 않는다.
+ * - 할당 크기는 spring.jpa.properties.jpashop.id.increment_size 로 바꿀 수 있다. (엔티티에서 @Parameter로 직접 주면 그 값이 우선)
+ * - 생성기는 package-info.java에 한 번만 선언하고, 엔티티는 @GeneratedValue(generator = NAME)만 붙인다. 시퀀스 이름은 "테이블명_seq"
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String NAME = "pooled_seq";
+    public static final String INCREMENT_SIZE_SETTING = "jpashop.id.increment_size";
+    private static final int DEFAULT_INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int incrementSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(INCREMENT_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_INCREMENT_SIZE);
+
+        params.putIfAbsent(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + "_seq"); //member -> member_seq, orders -> orders_seq
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(incrementSize));
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
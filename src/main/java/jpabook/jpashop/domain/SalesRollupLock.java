@@ -0,0 +1,32 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 매출 롤업 락 - row는 하나뿐이다. (import.sql)
+ * - 롤업 만들기(SalesRollupService.closeDays)와 롤업 다시 열기(지난 날짜 주문 취소)가 둘 다 이 row를 select ... for update로 잡는다.
+ * - 취소가 커밋되기 전에 그 날짜를 집계해서, 취소가 지울 롤업이 아직 없는 사이에 옛날 값으로 롤업이 저장되는 것을 막는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SalesRollupLock {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    private SalesRollupLock(Long id) {
+        this.id = id;
+    }
+
+    public static SalesRollupLock create() {
+        return new SalesRollupLock(ID);
+    }
+}
@@ -1,22 +1,32 @@
 package jpabook.jpashop.domain.item;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") //2차 캐시 (cache 프로필에서만 켜짐). SINGLE_TABLE이므로 Book/Album/Movie도 같은 영역을 쓴다.
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) //상속관계 전략을 부모테이블에서 잡아준다. 현재는 SINGLE_TABLE 전략을 쓰고 있음.
 @DiscriminatorColumn(name = "dtype") //구분해줄 컬럼명 명시
+@Table(indexes = @Index(name = "idx_item_name_id", columnList = "name, item_id")) //상품 목록 이름순 키셋 페이징
 @Getter @Setter
 public class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
     @Column(name = "item_id")
     private Long id;
 
@@ -24,16 +34,35 @@ public class Item {
     private int price;
     private int stockQuantity;
 
+    @Column(insertable = false, updatable = false) //조회(프로젝션)용. 값은 @DiscriminatorColumn이 넣으므로 persist 직후에는 null
+    @Setter(AccessLevel.NONE)
+    private String dtype; //B(Book), A(Album), M(Movie)
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
+    /*재고 샤딩 - 0이면 stockQuantity 한 컬럼으로 관리, 1 이상이면 재고를 stockShards에 나눠서 관리(stockQuantity는 0)*/
+    private int stockShardCount;
+
+    @JsonIgnore
+    @OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("shardNo")
+    @BatchSize(size = 100) //상품 목록에서 getStockQuantity()를 부르면 샤딩된 상품마다 샤드 조회가 나가지 않도록 IN으로 묶어서 조회
+    private List<ItemStockShard> stockShards = new ArrayList<>();
+
     //==비즈니스 로직==//
     // 객체지향적으로 생각하면, 데이터를 가지고 있는 쪽에 비즈니스 메서드가 있는 편이 좋다. (모듈의 응집도 향상)
     /*
 
     * stock 증가
+    * - 주문 취소는 OrderService에서 DB 상대값 UPDATE로 되돌린다. 샤드는 조건부 UPDATE마다 version이 오르므로,
+    *   이 메서드로 샤드를 바꾸면(dirty checking) 그 사이 들어온 주문과 충돌해서 OptimisticLockException이 난다.
     * */
     public void addStock(int quantity) {
+        if (isStockSharded()) { //아무 샤드에나 채워도 전체 합은 같다.
+            stockShards.get(ThreadLocalRandom.current().nextInt(stockShards.size())).addQuantity(quantity);
+            return;
+        }
         this.stockQuantity += quantity;
     }
 
@@ -41,6 +70,10 @@ public class Item {
     * stock 감소
     * */
     public void removeStock(int quantity) {
+        if (isStockSharded()) {
+            removeShardedStock(quantity);
+            return;
+        }
         int restStock = this.stockQuantity - quantity;
         if (restStock < 0) {
             throw new NotEnoughStockException("need more stock");
@@ -51,4 +84,95 @@ public class Item {
     //이런 식으로 엔티티의 필드값을 변경해야할 일이 있으면, 외부에서 계산해서 setter를 이용해서 주입하는 것이 아니라,
     // 엔티티 안에서 핵심 비지니스 메서드를 가지고 변경해야 한다.
 
+    /*
+     * 재고 샤딩 - 현재 재고를 shardCount개의 하위 재고 row로 나눈다. (이미 샤딩된 상품이면 다시 나눈다)
+     * */
+    public void shardStock(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("샤드 수는 1 이상이어야 합니다.");
+        }
+        distributeStock(getStockQuantity(), shardCount);
+    }
+
+    /*
+     * 재고 샤딩 해제 - 샤드 재고를 합쳐서 stockQuantity 한 컬럼으로 되돌린다. (샤드 row는 orphanRemoval로 삭제)
+     * */
+    public void unshardStock() {
+        if (!isStockSharded()) {
+            return;
+        }
+        int total = getStockQuantity();
+        stockShards.clear();
+        this.stockShardCount = 0;
+        this.stockQuantity = total;
+    }
+
+    public boolean isStockSharded() {
+        return stockShardCount > 0;
+    }
+
+    /*
+     * 재고 조회 - 샤딩된 상품은 모든 샤드의 합
+     * */
+    public int getStockQuantity() {
+        if (!isStockSharded()) {
+            return stockQuantity;
+        }
+        return stockShards.stream()
+                .mapToInt(ItemStockShard::getQuantity)
+                .sum();
+    }
+
+    /*
+     * 재고 수정 - 샤딩된 상품은 샤드에 다시 나눠 담는다.
+     * */
+    public void setStockQuantity(int stockQuantity) {
+        if (isStockSharded()) {
+            distributeStock(stockQuantity, stockShardCount);
+            return;
+        }
+        this.stockQuantity = stockQuantity;
+    }
+
+    /* 기존 샤드 row는 재사용하고(수량만 변경), 모자라면 추가, 남으면 삭제 */
+    private void distributeStock(int total, int shardCount) {
+        for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+            int quantity = total / shardCount + (shardNo < total % shardCount ? 1 : 0);
+            if (shardNo < stockShards.size()) {
+                stockShards.get(shardNo).changeQuantity(quantity);
+            } else {
+                stockShards.add(new ItemStockShard(this, shardNo, quantity));
+            }
+        }
+        while (stockShards.size() > shardCount) {
+            stockShards.remove(stockShards.size() - 1);
+        }
+        this.stockQuantity = 0;
+        this.stockShardCount = shardCount;
+    }
+
+    /* 한 샤드에서 다 뺄 수 있으면 그 샤드에서, 아니면 여러 샤드에서 나눠서 뺀다. */
+    private void removeShardedStock(int quantity) {
+        if (getStockQuantity() < quantity) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        int start = ThreadLocalRandom.current().nextInt(stockShards.size());
+        for (int i = 0; i < stockShards.size(); i++) {
+            ItemStockShard shard = stockShards.get((start + i) % stockShards.size());
+            if (shard.getQuantity() >= quantity) {
+                shard.removeQuantity(quantity);
+                return;
+            }
+        }
+        int remaining = quantity;
+        for (ItemStockShard shard : stockShards) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            shard.removeQuantity(taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                return;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,64 @@
+package jpabook.jpashop.domain.item;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+import static javax.persistence.FetchType.*;
+
+/**
+ * 상품 재고의 일부를 나눠 가진 하위 재고 row
+ * - 주문이 몰리는 상품의 재고를 N개 row로 나눠서, 한 row에 몰리던 UPDATE 경합을 N개 row로 분산시킨다.
+ * - 상품의 전체 재고 = 모든 샤드 quantity의 합
+ * - 조건부 UPDATE(ItemStockShardRepository)와 엔티티 변경(dirty checking)이 섞여도 덮어쓰지 않도록 @Version으로 낙관적 락을 건다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_item_stock_shard_item_no", columnList = "item_id, shard_no")) //상품의 샤드 조회, 샤드 번호로 조건부 UPDATE
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ItemStockShard {
+
+    @Id
+    @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+    @Column(name = "item_stock_shard_id")
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    private int shardNo;   //0 ~ (샤드 수 - 1)
+    private int quantity;
+
+    @Version
+    private long version;
+
+    ItemStockShard(Item item, int shardNo, int quantity) {
+        this.item = item;
+        this.shardNo = shardNo;
+        this.quantity = quantity;
+    }
+
+    //==비즈니스 로직==//
+    public void addQuantity(int quantity) {
+        this.quantity += quantity;
+    }
+
+    public void removeQuantity(int quantity) {
+        int restQuantity = this.quantity - quantity;
+        if (restQuantity < 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        this.quantity = restQuantity;
+    }
+
+    void changeQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
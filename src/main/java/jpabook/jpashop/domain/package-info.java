@@ -0,0 +1,8 @@
+/**
+ * 모든 엔티티가 같이 쓰는 식별자 생성기 (엔티티별 시퀀스 + pooled 옵티마이저, PooledSequenceGenerator 참고)
+ * - 패키지에 선언한 @GenericGenerator는 전역이라 하위 패키지(item)의 엔티티도 이름으로 쓸 수 있다.
+ */
+@GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = "jpabook.jpashop.domain.PooledSequenceGenerator")
+package jpabook.jpashop.domain;
+
+import org.hibernate.annotations.GenericGenerator;
@@ -0,0 +1,27 @@
+package jpabook.jpashop.domain.support;
+
+import jpabook.jpashop.domain.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Category 엔티티 리스너 - 바뀐 카테고리를 CategoryChangedEvent로 알리기만 한다.
+ * - 도메인이 서비스(CategoryTreeCache)를 직접 알지 않도록 이벤트로 넘긴다.
+ * - 스프링(SpringBeanContainer)이 만들어서 ApplicationEventPublisher를 주입한다.
+ */
+@RequiredArgsConstructor
+public class CategoryChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void categoryChanged(Category category) {
+        eventPublisher.publishEvent(new CategoryChangedEvent(category));
+    }
+}
@@ -0,0 +1,15 @@
+package jpabook.jpashop.domain.support;
+
+import jpabook.jpashop.domain.Category;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 카테고리가 저장/수정/삭제됨 (CategoryChangeListener가 발행)
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryChangedEvent {
+
+    private final Category category;
+}
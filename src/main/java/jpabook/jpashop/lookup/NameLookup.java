@@ -0,0 +1,62 @@
+package jpabook.jpashop.lookup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 주문 화면 자동완성용 회원/상품 이름 인덱스 (이름 앞부분 -> id)
+ * - 시작할 때 DB의 전체 이름을 읽어서 채우고(ApplicationReadyEvent), 이후에는 가입/수정/상품 등록이 커밋될 때마다 반영한다.
+ *   (MemberService, ItemService, ItemImportService에서 TransactionHooks.afterCommit으로 호출)
+ * - 애플리케이션 인스턴스별 메모리 인덱스라, 다른 인스턴스에서 바뀐 이름은 재시작 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+public class NameLookup {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamePrefixIndex members = new NamePrefixIndex();
+    private final NamePrefixIndex items = new NamePrefixIndex();
+
+    public NameLookup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query("select member_id, name from member",
+                (RowCallbackHandler) rs -> members.add(rs.getLong(1), rs.getString(2)));
+        jdbcTemplate.query("select item_id, name from item",
+                (RowCallbackHandler) rs -> items.add(rs.getLong(1), rs.getString(2)));
+        log.info("이름 자동완성 인덱스 로딩 완료: 회원 {}명, 상품 {}개", members.size(), items.size());
+    }
+
+    public List<NameMatch> searchMembers(String prefix, int limit) {
+        return members.search(prefix, limit);
+    }
+
+    public List<NameMatch> searchItems(String prefix, int limit) {
+        return items.search(prefix, limit);
+    }
+
+    public void memberAdded(Long memberId, String name) {
+        members.add(memberId, name);
+    }
+
+    public void memberRenamed(Long memberId, String oldName, String newName) {
+        members.rename(memberId, oldName, newName);
+    }
+
+    public void itemAdded(Long itemId, String name) {
+        items.add(itemId, name);
+    }
+
+    public void itemRenamed(Long itemId, String oldName, String newName) {
+        items.rename(itemId, oldName, newName);
+    }
+}
@@ -0,0 +1,11 @@
+package jpabook.jpashop.lookup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NameMatch {
+    private Long id;
+    private String name;
+}
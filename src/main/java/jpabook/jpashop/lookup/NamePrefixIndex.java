@@ -0,0 +1,78 @@
+package jpabook.jpashop.lookup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 이름 앞부분으로 id 찾기 - (소문자 이름, id) 순으로 정렬된 ConcurrentSkipListSet
+ * - 검색은 prefix 위치로 바로 내려가서(O(log n)) 앞부분이 맞는 동안 limit개까지만 읽는다.
+ * - 추가/삭제/검색이 락 없이 동시에 가능하다. 검색 중에 바뀐 항목은 보일 수도 안 보일 수도 있다.
+ * - 같은 이름이 여러 개여도(상품) id가 달라서 따로 들어간다.
+ */
+final class NamePrefixIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing((Entry entry) -> entry.key)
+            .thenComparingLong(entry -> entry.id);
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+
+    void add(long id, String name) {
+        if (name != null) {
+            entries.add(new Entry(id, name));
+        }
+    }
+
+    void remove(long id, String name) {
+        if (name != null) {
+            entries.remove(new Entry(id, name));
+        }
+    }
+
+    /* 이름이 바뀌면 옛 이름 항목을 지우고 새로 넣는다. */
+    void rename(long id, String oldName, String newName) {
+        if (oldName != null && oldName.equals(newName)) {
+            return;
+        }
+        remove(id, oldName);
+        add(id, newName);
+    }
+
+    List<NameMatch> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<NameMatch> result = new ArrayList<>(limit);
+        for (Entry entry : entries.tailSet(new Entry(Long.MIN_VALUE, key, prefix))) {
+            if (result.size() >= limit || !entry.key.startsWith(key)) {
+                break;
+            }
+            result.add(new NameMatch(entry.id, entry.name));
+        }
+        return result;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT); //바뀌는 글자가 없으면 같은 String을 돌려주므로 한글 이름은 추가 메모리가 없다.
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String key;  //정렬/검색용 (소문자)
+        private final String name; //화면 표시용
+
+        Entry(long id, String name) {
+            this(id, normalize(name), name);
+        }
+
+        Entry(long id, String key, String name) {
+            this.id = id;
+            this.key = key;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ExplainCaptureListener가 모은 SELECT마다 H2 EXPLAIN ANALYZE를 돌려서, scanThreshold보다 많은 row를 풀스캔한 쿼리를 찾는다.
+ * - EXPLAIN ANALYZE는 쿼리를 실제로 실행하므로 개발/테스트 DB에서만 쓴다. (jpashop.explain.enabled=true)
+ * - 결과: GET /api/dev/explain, 애플리케이션 종료 시 경고 로그
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.explain.enabled", havingValue = "true")
+public class ExplainAnalyzer {
+
+    private final ExplainCaptureListener captureListener;
+    private final DataSource dataSource;
+    private final long scanThreshold;
+
+    public ExplainAnalyzer(ExplainCaptureListener captureListener, DataSource dataSource,
+                           @Value("${jpashop.explain.scan-threshold:1000}") long scanThreshold) {
+        this.captureListener = captureListener;
+        this.dataSource = dataSource;
+        this.scanThreshold = scanThreshold;
+    }
+
+    public ExplainReport analyze() {
+        List<ExplainCaptureListener.CapturedQuery> queries = new ArrayList<>(captureListener.getShapes().values());
+        List<ExplainReport.Finding> findings = new ArrayList<>();
+        List<ExplainReport.Failure> failures = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (ExplainCaptureListener.CapturedQuery query : queries) {
+                try {
+                    String plan = explain(connection, query);
+                    for (ExplainPlan.TableScan scan : ExplainPlan.tableScans(plan)) {
+                        if (scan.getScanCount() > scanThreshold) {
+                            findings.add(new ExplainReport.Finding(query.getSql(), query.getExecutions(),
+                                    scan.getTable(), scan.getScanCount(), plan));
+                        }
+                    }
+                } catch (SQLException e) {
+                    failures.add(new ExplainReport.Failure(query.getSql(), e.getMessage()));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN 분석용 커넥션을 얻지 못했습니다.", e);
+        }
+
+        findings.sort(Comparator.comparingLong(ExplainReport.Finding::getScanCount).reversed());
+        return new ExplainReport(scanThreshold, queries.size(), findings, failures);
+    }
+
+    @PreDestroy
+    public void logReport() {
+        if (captureListener.getShapes().isEmpty()) {
+            return;
+        }
+        ExplainReport report = analyze();
+        if (!report.getFindings().isEmpty()) {
+            log.warn("{}", report);
+        }
+    }
+
+    private String explain(Connection connection, ExplainCaptureListener.CapturedQuery query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN ANALYZE " + query.getSql())) {
+            List<Object> parameters = query.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
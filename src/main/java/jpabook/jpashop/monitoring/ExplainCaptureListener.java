@@ -0,0 +1,89 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * p6spy 이벤트 리스너 - 실행된 SELECT를 모양(파라미터를 뺀 SQL)별로 한 건씩 모아둔다. (ExplainAnalyzer가 실행계획을 본다)
+ * - 모양마다 처음 실행될 때의 파라미터 값을 같이 저장해서, 같은 값으로 EXPLAIN ANALYZE를 돌린다.
+ * - UPDATE/DELETE는 EXPLAIN ANALYZE가 실제로 실행해버리므로 모으지 않는다.
+ * - 개발/테스트용 (jpashop.explain.enabled=true 일 때만 등록)
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.explain.enabled", havingValue = "true")
+public class ExplainCaptureListener extends SimpleJdbcEventListener {
+
+    private static final int MAX_SHAPES = 1000; //모양이 끝없이 늘어나도(IN절 길이 등) 메모리를 제한
+
+    private final Map<String, CapturedQuery> shapes = new ConcurrentHashMap<>();
+    private final Map<PreparedStatementInformation, Map<Integer, Object>> bindings =
+            Collections.synchronizedMap(new WeakHashMap<>()); //statement가 닫혀서 버려지면 같이 사라진다.
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex,
+                                            Object value, SQLException e) {
+        bindings.computeIfAbsent(statementInformation, key -> new TreeMap<>()).put(parameterIndex, value);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = QueryCount.normalize(statementInformation.getSql());
+        if (e != null || !sql.regionMatches(true, 0, "select", 0, 6)) {
+            return;
+        }
+        CapturedQuery captured = shapes.get(sql);
+        if (captured == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+                return;
+            }
+            Map<Integer, Object> parameters = bindings.get(statementInformation);
+            captured = shapes.computeIfAbsent(sql, key -> new CapturedQuery(key,
+                    parameters == null ? Collections.emptyList() : new ArrayList<>(parameters.values())));
+        }
+        captured.executions.incrementAndGet();
+    }
+
+    public Map<String, CapturedQuery> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    public void clear() {
+        shapes.clear();
+    }
+
+    public static class CapturedQuery {
+        private final String sql;
+        private final List<Object> parameters; //1번 파라미터부터 순서대로
+        private final AtomicLong executions = new AtomicLong();
+
+        CapturedQuery(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        public long getExecutions() {
+            return executions.get();
+        }
+    }
+}
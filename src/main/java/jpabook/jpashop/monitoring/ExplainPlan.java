@@ -0,0 +1,45 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * H2 EXPLAIN ANALYZE 결과에서 풀 테이블 스캔 찾기
+ * <pre>
+ * FROM PUBLIC.ORDERS O
+ *     /* PUBLIC.ORDERS.tableScan *&#47;
+ *     /* scanCount: 10001 *&#47;
+ * </pre>
+ * - 테이블마다 어떤 인덱스(또는 tableScan)를 탔는지 주석이 붙고, ANALYZE면 그 뒤에 실제로 읽은 row 수(scanCount)가 붙는다.
+ */
+public final class ExplainPlan {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.\"]+)\\.tableScan\\s*\\*/");
+    private static final Pattern SCAN_COUNT = Pattern.compile("/\\*\\s*scanCount:\\s*(\\d+)\\s*\\*/");
+
+    private ExplainPlan() {
+    }
+
+    public static List<TableScan> tableScans(String plan) {
+        List<TableScan> scans = new ArrayList<>();
+        Matcher table = TABLE_SCAN.matcher(plan);
+        Matcher count = SCAN_COUNT.matcher(plan);
+        while (table.find()) {
+            long scanCount = count.find(table.end()) ? Long.parseLong(count.group(1)) : -1; //바로 다음 scanCount가 이 테이블의 것
+            scans.add(new TableScan(table.group(1).replace("\"", ""), scanCount));
+        }
+        return scans;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class TableScan {
+        private String table;
+        private long scanCount; //EXPLAIN ANALYZE가 아니면 -1
+    }
+}
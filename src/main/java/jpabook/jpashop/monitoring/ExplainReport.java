@@ -0,0 +1,47 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * ExplainAnalyzer 결과 - 모은 SQL 모양 중 threshold보다 많은 row를 풀스캔한 것만 담는다.
+ */
+@Data
+@AllArgsConstructor
+public class ExplainReport {
+
+    private long scanThreshold;
+    private int analyzed;              //EXPLAIN ANALYZE를 돌린 SQL 모양 수
+    private List<Finding> findings;    //풀스캔 row 수가 많은 순
+    private List<Failure> failures;    //EXPLAIN이 실패한 SQL (파라미터 타입 등)
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EXPLAIN 분석: SQL ").append(analyzed).append("개, 풀스캔 ")
+                .append(scanThreshold).append("건 초과 ").append(findings.size()).append("개");
+        findings.forEach(finding -> sb.append("\n  [").append(finding.getTable()).append(" tableScan ")
+                .append(finding.getScanCount()).append(" rows, ").append(finding.getExecutions()).append("회 실행] ")
+                .append(finding.getSql()));
+        failures.forEach(failure -> sb.append("\n  [실패: ").append(failure.getMessage()).append("] ").append(failure.getSql()));
+        return sb.toString();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Finding {
+        private String sql;
+        private long executions;
+        private String table;
+        private long scanCount;
+        private String plan;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Failure {
+        private String sql;
+        private String message;
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * 한 요청(또는 테스트 구간)에서 실행된 SQL 수
+ * - 같은 모양(파라미터를 뺀 SQL)이 여러 번 실행되면 N+1을 의심할 수 있다.
+ * - QueryCounter.propagate()로 넘긴 워커 스레드에서도 기록하므로 동기화한다.
+ */
+public class QueryCount {
+
+    private long total;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>(); //SQL 모양 -> 실행 횟수 (실행 순서 유지)
+
+    synchronized void record(String sql) {
+        total++;
+        shapes.merge(normalize(sql), 1, Integer::sum);
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /* 가장 많이 반복된 SQL 모양의 실행 횟수 */
+    public synchronized int getMaxRepeat() {
+        return shapes.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /* threshold번 이상 실행된 SQL 모양 */
+    public synchronized Map<String, Integer> getRepeatedShapes(int threshold) {
+        return shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public synchronized Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(shapes)); //복사본 (기록 중에 읽어도 안전하도록)
+    }
+
+    /* PreparedStatement의 SQL은 이미 파라미터가 ?로 빠져 있으므로 공백만 정리한다. */
+    static String normalize(String sql) {
+        return sql == null ? "" : sql.trim().replaceAll("\\s+", " ");
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("total=").append(total);
+        shapes.forEach((sql, count) -> sb.append("\n  ").append(count).append("x ").append(sql));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP 요청마다 실행된 SQL 수를 세서 메트릭으로 남기고, 같은 SQL이 반복되면(N+1 의심) 경고 로그를 남긴다.
+ * - 메트릭: jpashop.sql.statements (요청당 SQL 수), jpashop.sql.repeated (요청당 가장 많이 반복된 SQL의 실행 횟수), uri 태그
+ * - 응답 헤더는 본문을 쓰기 전에 넣어야 하므로 QueryCountHeaderAdvice에서 넣는다.
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${jpashop.query-count.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCount count = QueryCounter.stop();
+            record(request, count);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCount count) {
+        String uri = uriTag(request);
+        DistributionSummary.builder("jpashop.sql.statements")
+                .description("SQL statements executed per request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(count.getTotal());
+        DistributionSummary.builder("jpashop.sql.repeated")
+                .description("Executions of the most repeated SQL shape per request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(count.getMaxRepeat());
+
+        Map<String, Integer> repeated = count.getRepeatedShapes(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            log.warn("N+1 의심: {} {} - 같은 SQL이 {}번 이상 실행됨 {}", request.getMethod(), uri, nPlusOneThreshold, repeated);
+        }
+    }
+
+    /* 실제 경로(/api/orders/1) 대신 매핑 패턴(/api/orders/{id})을 태그로 써서 태그 종류가 무한히 늘지 않게 한다. */
+    private String uriTag(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
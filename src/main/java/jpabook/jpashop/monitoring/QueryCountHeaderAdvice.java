@@ -0,0 +1,38 @@
+package jpabook.jpashop.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * API 응답 헤더에 지금까지 실행된 SQL 수를 넣는다.
+ * - X-Query-Count: SQL 실행 수, X-Query-Max-Repeat: 가장 많이 반복된 SQL의 실행 횟수
+ * - 본문 직렬화 직전 값이므로, 직렬화 중에 일어나는 지연 로딩(엔티티를 그대로 반환하는 v1)은 헤더에 포함되지 않는다. (메트릭에는 포함)
+ */
+@RestControllerAdvice
+public class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String MAX_REPEAT_HEADER = "X-Query-Max-Repeat";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryCount count = QueryCounter.current();
+        if (count != null) {
+            response.getHeaders().set(QUERY_COUNT_HEADER, String.valueOf(count.getTotal()));
+            response.getHeaders().set(MAX_REPEAT_HEADER, String.valueOf(count.getMaxRepeat()));
+        }
+        return body;
+    }
+}
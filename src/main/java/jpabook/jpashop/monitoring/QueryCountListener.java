@@ -0,0 +1,22 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트 리스너 - DB로 나가는 모든 statement 실행을 QueryCounter에 기록한다.
+ * - Hibernate가 만든 SQL뿐 아니라 JDBC로 직접 실행한 SQL(재고 UPDATE 등)도 잡힌다.
+ * - JDBC 배치는 실행(왕복) 한 번으로 센다.
+ * - p6spy-spring-boot-starter가 JdbcEventListener 빈을 자동으로 등록한다.
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounter.record(statementInformation.getSql());
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 실행되는 SQL 세기
+ * - start()~stop() 사이에 현재 스레드에서 실행된 SQL만 센다. (HTTP 요청 = QueryCountFilter, 테스트 = QueryCountAssertions)
+ * - 다른 스레드로 넘기는 작업은 propagate()로 감싸야 그 스레드의 SQL도 같이 센다. (예: v5 orderItem 병렬 청크 조회)
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static QueryCount start() {
+        QueryCount count = new QueryCount();
+        CURRENT.set(count);
+        return count;
+    }
+
+    public static QueryCount stop() {
+        QueryCount count = CURRENT.get();
+        CURRENT.remove();
+        return count;
+    }
+
+    /* 세는 중이 아니면 null */
+    public static QueryCount current() {
+        return CURRENT.get();
+    }
+
+    /*
+     * 다른 스레드에서 실행할 작업을 감싸서, 그 스레드에서 실행된 SQL도 지금 세고 있는 QueryCount에 더한다.
+     * 작업은 stop() 전에 끝나야 한다. (끝나기를 기다리지 않는 작업은 감싸지 않는다)
+     * */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryCount count = CURRENT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            QueryCount previous = CURRENT.get();
+            CURRENT.set(count);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void record(String sql) {
+        QueryCount count = CURRENT.get();
+        if (count != null) {
+            count.record(sql);
+        }
+    }
+}
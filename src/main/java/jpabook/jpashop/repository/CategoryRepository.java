@@ -0,0 +1,48 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category); //addChildCategory로 만든 클로저 row도 cascade로 같이 저장
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /* 트리 스냅샷용 - 엔티티 대신 (id, 이름, 부모 id)만 한 번에 */
+    public List<Object[]> findAllNodes() {
+        return em.createQuery("select c.id, c.name, p.id from Category c left join c.parent p order by c.id", Object[].class)
+                .getResultList();
+    }
+
+    /*
+     * 카테고리 아래(자기 자신 포함) 모든 상품 - 쿼리 1번
+     * - 클로저 테이블의 (ancestor_id, descendant_id) 유니크 인덱스로 자손 카테고리를 찾고 category_item과 조인한다.
+     *   자기 자신 row(depth 0)가 있으므로 OR 없이 조인 하나로 자기 자신까지 찾는다.
+     * - 여러 하위 카테고리에 걸친 상품은 한 번만 나오도록 distinct
+     * */
+    public List<Item> findItemsInSubtree(Long categoryId, int offset, int limit) {
+        return em.createQuery("select distinct i from Item i" +
+                        " join i.categories c" +
+                        " join CategoryClosure cc on cc.descendant = c" +
+                        " where cc.ancestor.id = :categoryId" +
+                        " order by i.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
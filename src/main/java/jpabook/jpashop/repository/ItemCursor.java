@@ -0,0 +1,47 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 상품 목록 키셋 페이징용 커서 - 마지막으로 내려준 상품의 (이름, id)
+ * - 정렬 기준도 같이 담아서, 정렬을 바꾼 채로 이전 커서를 넘기면 거부한다.
+ */
+@Getter
+public class ItemCursor {
+
+    private final ItemSearch.ItemSort sort;
+    private final Long itemId;
+    private final String name;
+
+    public ItemCursor(ItemSearch.ItemSort sort, Long itemId, String name) {
+        this.sort = sort;
+        this.itemId = itemId;
+        this.name = name;
+    }
+
+    public String encode() {
+        String raw = sort + "," + itemId + "," + (name == null ? "" : name); //이름에 ,가 있어도 되도록 이름을 마지막에 둔다.
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* 토큰이 없으면 첫 페이지(null)로 본다. */
+    public static ItemCursor decode(String token, ItemSearch.ItemSort sort) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",", 3);
+            if (parts.length != 3 || ItemSearch.ItemSort.valueOf(parts[0]) != sort) {
+                throw new IllegalArgumentException("잘못된 커서입니다: " + token);
+            }
+            return new ItemCursor(sort, Long.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + token, e);
+        }
+    }
+}
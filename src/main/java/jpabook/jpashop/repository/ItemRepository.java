@@ -1,11 +1,22 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.support.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Repository
 @RequiredArgsConstructor
@@ -26,8 +37,139 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /* select ... for update - 재고 구조를 바꾸는 동안 다른 트랜잭션의 재고 차감을 막는다. */
+    public Item findOneForUpdate(Long id) {
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /* 여러 상품을 IN 쿼리 한 번으로 조회 */
+    public List<Item> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList(); //빈 IN 절은 DB에 따라 문법 오류
+        }
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    /*
+     * 재고 차감 (조건부 UPDATE 한 번으로 처리)
+     * - 엔티티의 removeStock()은 읽은 값에서 빼서 덮어쓰는(read-modify-write) 방식이라,
+     *   동시에 같은 상품을 주문하면 두 트랜잭션이 모두 stock=1을 읽고 둘 다 성공하는 lost update가 생긴다.
+     * - DB에서 "남은 재고 >= 주문 수량" 조건으로 바로 빼므로 락 없이도 초과 판매가 없다. 0건 수정이면 재고 부족.
+     * - UPDATE는 영속성 컨텍스트를 거치지 않으므로, refresh로 엔티티 값을 DB와 맞춰서 dirty checking이 예전 값을 덮어쓰지 않게 한다.
+     * */
+    public void removeStock(Item item, int quantity) {
+        int updated = executeStockUpdate(
+                "update item set stock_quantity = stock_quantity - ? where item_id = ? and stock_quantity >= ?",
+                quantity, item.getId(), quantity);
+
+        if (updated == 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        em.refresh(item);
+        evictFromCache(item);
+    }
+
+    /*
+     * 재고 차감 시도 (일괄 주문) - removeStock과 같은 조건부 UPDATE, 재고가 부족하면 false
+     * - 같은 상품을 여러 번 뺄 수 있으므로 엔티티는 refresh 하지 않는다. 다 뺀 뒤에 refreshStock()을 한 번 호출한다.
+     * */
+    public boolean tryRemoveStock(Long itemId, int quantity) {
+        int updated = executeStockUpdate(
+                "update item set stock_quantity = stock_quantity - ? where item_id = ? and stock_quantity >= ?",
+                quantity, itemId, quantity);
+        evictFromCache(itemId);
+        return updated == 1;
+    }
+
+    /* JDBC로 바꾼 재고를 엔티티에 반영 */
+    public void refreshStock(Item item) {
+        em.refresh(item);
+    }
+
+    /*
+     * 재고 복구 (상대값 UPDATE) - 읽은 값으로 덮어쓰지 않으므로 동시에 들어온 차감을 잃지 않는다.
+     * */
+    public void addStock(Item item, int quantity) {
+        executeStockUpdate("update item set stock_quantity = stock_quantity + ? where item_id = ?",
+                quantity, item.getId());
+        em.refresh(item);
+        evictFromCache(item);
+    }
+
+    /*
+     * 재고 일괄 복구 - 상품별 수량(상품 id -> 수량)을 상품당 UPDATE 한 번씩, JDBC 배치 한 번으로 더한다.
+     * 상품 id 순으로 실행해서 동시에 실행된 주문/취소와 row 락 순서를 맞춘다.
+     * */
+    public void addStocks(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "update item set stock_quantity = stock_quantity + ? where item_id = ?")) {
+                for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+        quantities.keySet().forEach(this::evictFromCache);
+    }
+
+    /* 재고가 샤딩된 상품의 샤드 수 (상품 id -> 샤드 수). 샤딩되지 않은 상품은 빠진다. */
+    public Map<Long, Integer> findStockShardCounts(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Object[]> rows = em.createQuery(
+                        "select i.id, i.stockShardCount from Item i" +
+                                " where i.id in :ids" +
+                                " and i.stockShardCount > 0", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        Map<Long, Integer> shardCounts = new HashMap<>();
+        for (Object[] row : rows) {
+            shardCounts.put((Long) row[0], (Integer) row[1]);
+        }
+        return shardCounts;
+    }
+
+    /*
+     * 재고 UPDATE는 JPQL 벌크 연산 대신 JDBC로 직접 실행한다.
+     * - JPQL 벌크 UPDATE는 2차 캐시의 Item 영역 전체를 비운다. (주문 한 건마다 모든 상품 캐시가 날아감)
+     * - JDBC는 자동 flush가 되지 않으므로 먼저 flush 해서 아직 insert 되지 않은 상품 등을 DB에 반영한다.
+     * */
+    private int executeStockUpdate(String sql, Object... params) {
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /* 바뀐 상품 하나만 2차 캐시에서 제거 - 지금 한 번, 트랜잭션이 끝난 뒤 한 번 더 (그 사이 다른 트랜잭션이 커밋 전 값을 다시 올렸을 수 있다) */
+    private void evictFromCache(Item item) {
+        evictFromCache(item.getId());
+    }
+
+    private void evictFromCache(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, itemId);
+        TransactionHooks.afterCompletion(() -> cache.evict(Item.class, itemId));
+    }
 }
@@ -0,0 +1,18 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ItemSearch {
+
+    private Integer minPrice;  //가격 하한 (포함)
+    private Integer maxPrice;  //가격 상한 (포함)
+    private String dtype;      //상품 종류 [B, A, M]
+    private ItemSort sort = ItemSort.ID;
+
+    public enum ItemSort {
+        ID, NAME
+    }
+}
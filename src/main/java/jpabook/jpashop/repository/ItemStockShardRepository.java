@@ -0,0 +1,111 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.ItemStockShard;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 샤딩된 재고(ItemStockShard) 차감
+ * - 주문마다 임의의 샤드 하나를 골라 조건부 UPDATE로 뺀다. 같은 상품 주문이 N개 row로 흩어지므로 한 row에 대한 경합이 1/N로 줄어든다.
+ * - 고른 샤드가 부족하면 다음 샤드로 넘어가고, 어느 한 샤드로도 안 되면(품절 직전) 전체 샤드를 잠그고 나눠서 뺀다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemStockShardRepository {
+
+    private final EntityManager em;
+
+    public void removeStock(Item item, int quantity) {
+        int shardCount = item.getStockShardCount();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int shardNo = (start + i) % shardCount;
+            if (tryRemoveStock(item.getId(), shardNo, quantity)) {
+                refreshShard(item, shardNo);
+                return;
+            }
+        }
+        removeStockWithLock(item, quantity);
+    }
+
+    /* 재고 복구 - 아무 샤드에나 더해도 전체 합은 같다. */
+    public void addStock(Item item, int quantity) {
+        int shardNo = addStock(item.getId(), item.getStockShardCount(), quantity);
+        refreshShard(item, shardNo);
+    }
+
+    /* 상품 엔티티 없이 재고 복구 (일괄 취소). 더한 샤드 번호를 돌려준다. */
+    public int addStock(Long itemId, int shardCount, int quantity) {
+        int shardNo = ThreadLocalRandom.current().nextInt(shardCount);
+        em.createQuery(
+                        "update ItemStockShard s" +
+                                " set s.quantity = s.quantity + :quantity, s.version = s.version + 1" +
+                                " where s.item.id = :itemId" +
+                                " and s.shardNo = :shardNo")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .setParameter("shardNo", shardNo)
+                .executeUpdate();
+        return shardNo;
+    }
+
+    /* 샤드 하나에서 조건부 UPDATE. 엔티티 쪽 변경과 충돌을 감지할 수 있도록 version도 같이 올린다. */
+    private boolean tryRemoveStock(Long itemId, int shardNo, int quantity) {
+        int updated = em.createQuery(
+                        "update ItemStockShard s" +
+                                " set s.quantity = s.quantity - :quantity, s.version = s.version + 1" +
+                                " where s.item.id = :itemId" +
+                                " and s.shardNo = :shardNo" +
+                                " and s.quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .setParameter("shardNo", shardNo)
+                .executeUpdate();
+        return updated == 1;
+    }
+
+    /* 품절 직전처럼 한 샤드로는 부족할 때만 타는 경로 - 샤드 전체를 select ... for update로 잠그고 나눠서 뺀다. */
+    private void removeStockWithLock(Item item, int quantity) {
+        List<ItemStockShard> shards = em.createQuery(
+                        "select s from ItemStockShard s" +
+                                " where s.item.id = :itemId" +
+                                " order by s.shardNo", ItemStockShard.class)
+                .setParameter("itemId", item.getId())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        shards.forEach(em::refresh); //이미 영속성 컨텍스트에 있던 샤드는 예전 값일 수 있다.
+
+        int total = shards.stream().mapToInt(ItemStockShard::getQuantity).sum();
+        if (total < quantity) {
+            throw new NotEnoughStockException("need more stock");
+        }
+
+        int remaining = quantity;
+        for (ItemStockShard shard : shards) {
+            int taken = Math.min(shard.getQuantity(), remaining);
+            shard.removeQuantity(taken); //dirty checking으로 UPDATE
+            remaining -= taken;
+            if (remaining == 0) {
+                return;
+            }
+        }
+    }
+
+    /* 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 이미 로딩된 샤드가 있으면 DB 값으로 맞춰준다. */
+    private void refreshShard(Item item, int shardNo) {
+        if (!Hibernate.isInitialized(item.getStockShards())) {
+            return;
+        }
+        item.getStockShards().stream()
+                .filter(shard -> shard.getShardNo() == shardNo)
+                .forEach(em::refresh);
+    }
+}
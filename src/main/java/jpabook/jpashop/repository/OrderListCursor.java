@@ -0,0 +1,65 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.repository.order.query.OrderListDto;
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 주문 검색 키셋 페이징용 커서 - 마지막으로 내려준 주문의 (정렬 값, id)
+ * - 정렬이 주문일이면 orderDate, 주문금액이면 totalPrice만 채운다.
+ * - 정렬 기준도 같이 담아서, 정렬을 바꾼 채로 이전 커서를 넘기면 거부한다.
+ */
+@Getter
+public class OrderListCursor {
+
+    private final OrderSearch.OrderSort sort;
+    private final Long orderId;
+    private final LocalDateTime orderDate;
+    private final Integer totalPrice;
+
+    private OrderListCursor(OrderSearch.OrderSort sort, Long orderId, LocalDateTime orderDate, Integer totalPrice) {
+        this.sort = sort;
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.totalPrice = totalPrice;
+    }
+
+    public static OrderListCursor of(OrderSearch.OrderSort sort, OrderListDto last) {
+        if (sort == OrderSearch.OrderSort.TOTAL_PRICE) {
+            return new OrderListCursor(sort, last.getOrderId(), null, last.getTotalPrice());
+        }
+        return new OrderListCursor(sort, last.getOrderId(), last.getOrderDate(), null);
+    }
+
+    public String encode() {
+        Object value = sort == OrderSearch.OrderSort.TOTAL_PRICE ? totalPrice : orderDate;
+        String raw = sort + "," + orderId + "," + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* 토큰이 없으면 첫 페이지(null)로 본다. */
+    public static OrderListCursor decode(String token, OrderSearch.OrderSort sort) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 3 || OrderSearch.OrderSort.valueOf(parts[0]) != sort) {
+                throw new IllegalArgumentException("잘못된 커서입니다: " + token);
+            }
+            Long orderId = Long.valueOf(parts[1]);
+            if (sort == OrderSearch.OrderSort.TOTAL_PRICE) {
+                return new OrderListCursor(sort, orderId, null, Integer.valueOf(parts[2]));
+            }
+            return new OrderListCursor(sort, orderId, LocalDateTime.parse(parts[2]), null);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + token, e);
+        }
+    }
+}
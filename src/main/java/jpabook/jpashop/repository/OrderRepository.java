@@ -9,10 +9,14 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static jpabook.jpashop.domain.QMember.member;
 import static jpabook.jpashop.domain.QOrder.order;
@@ -136,23 +140,8 @@ public class OrderRepository {
     }
 
 
-    public List<Order> findAll(OrderSearch orderSearch) {
-
-        return query
-                .select(order)  //QOrder.order static import
-                .from(order)
-                .join(order.member, member)
-//                .where(order.status.eq(orderSearch.getOrderStatus()), member.name.like(orderSearch.getMemberName()))  //정적 쿼리라면 이렇게 하면 된다.
-                .where(statusEq(orderSearch.getOrderStatus()),nameLike(orderSearch.getMemberName()))  //동적쿼리 사용 위해 메소드 추출하여 이렇게 사용.
-                .limit(1000)
-                .fetch();
-    }
-
-    private BooleanExpression nameLike(String memberName) {
-        if (!StringUtils.hasText(memberName)) {
-            return null;
-        }
-        return member.name.like(memberName);
+    private BooleanExpression nameEq(String memberName) {
+        return StringUtils.hasText(memberName) ? member.name.eq(memberName) : null;
     }
 
     private BooleanExpression statusEq(OrderStatus statusCond) {
@@ -198,4 +187,84 @@ public class OrderRepository {
                 .getResultList();
 
     }
+
+    /*
+     * 키셋(seek) 페이징
+     * - offset 방식은 앞 페이지의 row를 전부 읽고 버리므로 뒤 페이지로 갈수록 느려진다.
+     * - 마지막으로 본 (orderDate, id) 다음부터 orders(order_date, order_id) 인덱스를 타고 바로 찾아가므로 몇 번째 페이지든 비용이 같다.
+     * - orderDate >= :orderDate 를 앞에 둬서 인덱스 범위 스캔이 가능하게 한다.
+     * */
+    public List<Order> findAllWithMemberDelivery(OrderCursor after, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (after != null) {
+            jpql += " where o.orderDate >= :orderDate" +
+                    " and (o.orderDate > :orderDate or o.id > :orderId)";
+        }
+        jpql += " order by o.orderDate, o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("orderDate", after.getOrderDate())
+                    .setParameter("orderId", after.getOrderId());
+        }
+        return query.getResultList();
+    }
+
+    /* 검색 조건에 맞는 주문 id (일괄 취소 대상) */
+    public List<Long> findIds(OrderSearch orderSearch, int limit) {
+        return query
+                .select(order.id)
+                .from(order)
+                .join(order.member, member)
+                .where(statusEq(orderSearch.getOrderStatus()), nameEq(orderSearch.getMemberName())) //일괄 취소 대상이므로 이름은 정확히 일치
+                .orderBy(order.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /*
+     * 취소 검증용 - 주문과 배송 상태를 쿼리 한 번으로 조회하면서 잠근다. (select ... for update)
+     * id 순으로 잠가서 동시에 실행된 일괄 취소끼리 데드락이 나지 않게 한다.
+     * */
+    public List<Order> findAllWithDeliveryForUpdate(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.delivery d" +
+                                " where o.id in :orderIds" +
+                                " order by o.id", Order.class)
+                .setParameter("orderIds", orderIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /* 주문 상태를 UPDATE 한 번으로 취소 처리. 벌크 연산이므로 영속성 컨텍스트의 주문 엔티티에는 반영되지 않는다. */
+    public int cancelAll(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "update Order o set o.status = :cancel" +
+                                " where o.id in :orderIds" +
+                                " and o.status = :order")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    /* 주문들에 담긴 상품별 수량 합계 (상품 id -> 수량) */
+    public Map<Long, Integer> sumCountByItem(Collection<Long> orderIds) {
+        List<Object[]> rows = em.createQuery(
+                        "select oi.item.id, sum(oi.count) from OrderItem oi" +
+                                " where oi.order.id in :orderIds" +
+                                " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
 }
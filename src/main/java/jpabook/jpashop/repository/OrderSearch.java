@@ -1,13 +1,32 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter
 @Setter
 public class OrderSearch {
 
-    private String memberName;  //회원 이름
+    private String memberName;  //회원 이름 (앞부분 일치)
     private OrderStatus orderStatus;  //주문 상태[ORDER, CANCEL]
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;  //주문일 시작 (포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;    //주문일 끝 (포함)
+    private Long itemId;              //이 상품이 들어간 주문
+    private Integer minTotalPrice;    //주문금액 하한 (포함)
+    private DeliveryStatus deliveryStatus;  //배송 상태[READY, COMP]
+    private OrderSort sort = OrderSort.LATEST;
+
+    public enum OrderSort {
+        LATEST,      //주문일 최신순
+        OLDEST,      //주문일 오래된순
+        TOTAL_PRICE  //주문금액 큰 순
+    }
 }
@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Data;
+
+@Data
+public class ItemListDto {
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity; //샤딩된 상품은 샤드 재고의 합
+    private String dtype;
+
+    public ItemListDto(Long id, String name, int price, int stockQuantity, Number shardQuantity, String dtype) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity + (shardQuantity != null ? shardQuantity.intValue() : 0); //SUM 결과는 Long으로 나온다.
+        this.dtype = dtype;
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository.item.query;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpabook.jpashop.repository.ItemCursor;
+import jpabook.jpashop.repository.ItemSearch;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static jpabook.jpashop.domain.item.QItem.item;
+import static jpabook.jpashop.domain.item.QItemStockShard.itemStockShard;
+
+/**
+ * 상품 목록 화면/API용 조회
+ * - 엔티티 대신 목록에 필요한 컬럼만 DTO로 조회한다. (categories, stockShards 등 연관관계를 건드리지 않음)
+ * - 키셋 페이징: 마지막으로 본 상품 다음부터 인덱스(PK 또는 name, item_id)를 타고 찾아가므로 몇 번째 페이지든 비용이 같다.
+ */
+@Repository
+@ReadOnlyQuery
+public class ItemQueryRepository {
+
+    private final JPAQueryFactory query;
+
+    public ItemQueryRepository(EntityManager em) {
+        this.query = new JPAQueryFactory(em);
+    }
+
+    public List<ItemListDto> findItemList(ItemSearch itemSearch, ItemCursor after, int limit) {
+        return query
+                .select(Projections.constructor(ItemListDto.class,
+                        item.id,
+                        item.name,
+                        item.price,
+                        item.stockQuantity,
+                        JPAExpressions.select(itemStockShard.quantity.sum()) //샤딩되지 않은 상품은 null
+                                .from(itemStockShard)
+                                .where(itemStockShard.item.id.eq(item.id)),
+                        item.dtype))
+                .from(item)
+                .where(priceGoe(itemSearch.getMinPrice()),
+                        priceLoe(itemSearch.getMaxPrice()),
+                        dtypeEq(itemSearch.getDtype()),
+                        after(itemSearch.getSort(), after))
+                .orderBy(orderBy(itemSearch.getSort()))
+                .limit(limit)
+                .fetch();
+    }
+
+    private BooleanExpression priceGoe(Integer minPrice) {
+        return minPrice != null ? item.price.goe(minPrice) : null;
+    }
+
+    private BooleanExpression priceLoe(Integer maxPrice) {
+        return maxPrice != null ? item.price.loe(maxPrice) : null;
+    }
+
+    private BooleanExpression dtypeEq(String dtype) {
+        return StringUtils.hasText(dtype) ? item.dtype.eq(dtype) : null;
+    }
+
+    /* 커서 다음부터 - 이름순은 name >= :name 을 앞에 둬서 (name, item_id) 인덱스 범위 스캔이 되게 한다. */
+    private BooleanExpression after(ItemSearch.ItemSort sort, ItemCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        if (sort == ItemSearch.ItemSort.NAME) {
+            return item.name.goe(cursor.getName())
+                    .and(item.name.gt(cursor.getName()).or(item.id.gt(cursor.getItemId())));
+        }
+        return item.id.gt(cursor.getItemId());
+    }
+
+    private OrderSpecifier<?>[] orderBy(ItemSearch.ItemSort sort) {
+        if (sort == ItemSearch.ItemSort.NAME) {
+            return new OrderSpecifier<?>[]{item.name.asc(), item.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{item.id.asc()};
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 플랫 데이터(OrderFlatDto) -> OrderQueryDto 변환
+ * - 주문 id 순으로 정렬된 row를 한 번만 훑으면서, 인접한 같은 주문의 row를 하나의 OrderQueryDto로 접는다(fold).
+ * - groupingBy 처럼 전체 주문을 HashMap에 올리지 않고, 키 용도의 DTO를 row마다 새로 만들지 않는다.
+ * - 입력 순서(주문 id 순)가 그대로 결과 순서가 되므로, 스트리밍/페이징 결과에도 그대로 쓸 수 있다.
+ */
+public final class OrderFlatFolder {
+
+    private OrderFlatFolder() {
+    }
+
+    /* 정렬된 List를 한 번에 접는다. */
+    public static List<OrderQueryDto> fold(List<OrderFlatDto> flats) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        fold(flats.iterator()).forEachRemaining(result::add);
+        return result;
+    }
+
+    /* 정렬된 row 커서를 주문 단위 커서로 바꾼다. 다음 주문의 첫 row가 나올 때 이전 주문 1건이 완성된다. */
+    public static Iterator<OrderQueryDto> fold(Iterator<OrderFlatDto> flats) {
+        return new FoldingIterator(flats);
+    }
+
+    private static class FoldingIterator implements Iterator<OrderQueryDto> {
+
+        private final Iterator<OrderFlatDto> flats;
+        private OrderFlatDto lookahead; //이미 읽었지만 아직 접지 않은 다음 주문의 첫 row
+
+        FoldingIterator(Iterator<OrderFlatDto> flats) {
+            this.flats = flats;
+            this.lookahead = flats.hasNext() ? flats.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return lookahead != null;
+        }
+
+        @Override
+        public OrderQueryDto next() {
+            if (lookahead == null) {
+                throw new NoSuchElementException();
+            }
+            OrderFlatDto first = lookahead;
+            List<OrderItemQueryDto> orderItems = new ArrayList<>();
+            OrderQueryDto order = new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(),
+                    first.getOrderStatus(), first.getAddress(), orderItems);
+
+            OrderFlatDto flat = first;
+            while (flat != null && flat.getOrderId().equals(first.getOrderId())) {
+                orderItems.add(new OrderItemQueryDto(flat.getOrderId(),
+                        flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+                flat = flats.hasNext() ? flats.next() : null;
+            }
+            lookahead = flat;
+            return order;
+        }
+    }
+}
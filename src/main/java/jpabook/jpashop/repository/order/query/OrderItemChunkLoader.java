@@ -0,0 +1,179 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.monitoring.QueryCounter;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * orderId IN (...) 조회를 청크로 나눠서 병렬로 가져오는 로더
+ * - id 전체를 IN 절 하나에 넣으면 DB 파라미터 개수 제한을 넘을 수 있고, 실행계획도 매번 달라진다.
+ * - 청크 크기(jpashop.order-query.in-chunk-size)만큼 잘라서 조회하고,
+ *   hibernate.query.in_clause_parameter_padding 옵션으로 IN 파라미터 개수를 2의 거듭제곱으로 맞춰 실행계획을 재사용한다.
+ * - 청크가 여러 개면 첫 청크는 호출한 스레드가 자기 EntityManager로, 나머지는 제한된 스레드풀에서 청크마다 별도의
+ *   읽기 전용 EntityManager로 동시에 조회하므로, 전체 시간은 가장 느린 청크에 맞춰진다.
+ * - 다음 경우에는 나누지 않고 호출한 EntityManager로 청크를 차례로 조회한다.
+ *   1) 청크가 하나뿐일 때
+ *   2) 읽기/쓰기 트랜잭션 안일 때 - 별도 EntityManager(= 별도 커넥션)로는 이 트랜잭션이 아직 커밋하지 않은 주문이 보이지 않는다.
+ *   3) 병렬 조회 허용 수(fanOutPermits)를 다 쓰고 있을 때
+ * - 커넥션 풀: 병렬 조회하는 요청은 자기 커넥션을 잡은 채로 워커의 커넥션을 기다린다.
+ *   동시에 병렬 조회하는 요청 수 + 워커 수가 풀 크기를 넘지 않도록 제한해서, 요청들이 풀을 다 잡고 워커가 커넥션을 못 얻는 교착을 막는다.
+ * - 워커 스레드에서 실행한 SQL도 호출한 스레드의 QueryCounter에 센다. (X-Query-Count, query 메트릭)
+ */
+@Component
+public class OrderItemChunkLoader {
+
+    private static final String ORDER_ITEMS_IN_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                    " from OrderItem oi" +
+                    " join oi.item i" +
+                    " where oi.order.id in :orderIds";
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em; //호출한 스레드의 (트랜잭션/OSIV) EntityManager
+    private final int chunkSize;
+    private final Semaphore fanOutPermits;
+    private final ExecutorService executor;
+
+    public OrderItemChunkLoader(EntityManagerFactory emf,
+                                EntityManager em,
+                                @Value("${jpashop.order-query.in-chunk-size:500}") int chunkSize,
+                                @Value("${jpashop.order-query.parallelism:4}") int parallelism,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPoolSize) {
+        this.emf = emf;
+        this.em = em;
+        this.chunkSize = chunkSize;
+        this.fanOutPermits = new Semaphore(Math.max(0, maxPoolSize - parallelism)); //요청이 잡은 커넥션 + 워커 커넥션 <= 풀 크기
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        //스레드 수와 대기열을 모두 제한한다. 대기열이 가득 차면 호출한 스레드가 자기 EntityManager로 직접 조회한다. (load 참고)
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-item-loader-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /* key: orderId, value: 해당 주문의 orderItem 목록 */
+    public Map<Long, List<OrderItemQueryDto>> load(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<List<Long>> chunks = partition(orderIds);
+        if (chunks.size() == 1 || inReadWriteTransaction() || !fanOutPermits.tryAcquire()) {
+            return toMap(loadChunks(chunks));
+        }
+        try {
+            return loadInParallel(chunks);
+        } finally {
+            fanOutPermits.release();
+        }
+    }
+
+    private Map<Long, List<OrderItemQueryDto>> loadInParallel(List<List<Long>> chunks) {
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = new ArrayList<>(chunks.size());
+        List<List<Long>> rejected = new ArrayList<>();
+        for (List<Long> chunk : chunks.subList(1, chunks.size())) {
+            try {
+                futures.add(CompletableFuture.supplyAsync(QueryCounter.propagate(() -> loadChunkInNewEntityManager(chunk)), executor));
+            } catch (RejectedExecutionException e) {
+                rejected.add(chunk); //대기열이 가득 참 - 워커를 기다리지 않고 아래에서 직접 조회
+            }
+        }
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = toMap(loadChunk(chunks.get(0))); //워커가 도는 동안 첫 청크는 직접 조회
+        for (List<Long> chunk : rejected) {
+            orderItemMap.putAll(toMap(loadChunk(chunk)));
+        }
+        try {
+            for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+                orderItemMap.putAll(toMap(future.join())); //청크끼리는 orderId가 겹치지 않으므로 그대로 합친다.
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return orderItemMap;
+    }
+
+    /* 읽기 전용 트랜잭션은 아직 커밋하지 않은 변경이 없으므로 병렬로 조회해도 결과가 같다. */
+    private boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /* 호출한 EntityManager로 차례로 조회 (같은 트랜잭션, 같은 커넥션) */
+    private List<OrderItemQueryDto> loadChunks(List<List<Long>> chunks) {
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        for (List<Long> chunk : chunks) {
+            orderItems.addAll(loadChunk(chunk));
+        }
+        return orderItems;
+    }
+
+    private List<OrderItemQueryDto> loadChunk(List<Long> chunk) {
+        return em.createQuery(ORDER_ITEMS_IN_QUERY, OrderItemQueryDto.class)
+                .setParameter("orderIds", chunk)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultList();
+    }
+
+    /* 워커 스레드용 - EntityManager는 스레드 간 공유할 수 없으므로 청크마다 새로 만든다. */
+    private List<OrderItemQueryDto> loadChunkInNewEntityManager(List<Long> chunk) {
+        EntityManager chunkEm = emf.createEntityManager();
+        try {
+            return chunkEm.createQuery(ORDER_ITEMS_IN_QUERY, OrderItemQueryDto.class)
+                    .setParameter("orderIds", chunk)
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultList();
+        } finally {
+            chunkEm.close();
+        }
+    }
+
+    private List<List<Long>> partition(List<Long> orderIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            chunks.add(orderIds.subList(from, Math.min(from + chunkSize, orderIds.size())));
+        }
+        return chunks;
+    }
+
+    private Map<Long, List<OrderItemQueryDto>> toMap(List<OrderItemQueryDto> orderItems) {
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = new HashMap<>();
+        for (OrderItemQueryDto orderItem : orderItems) {
+            orderItemMap.computeIfAbsent(orderItem.getOrderId(), id -> new ArrayList<>()).add(orderItem);
+        }
+        return orderItemMap;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/* 주문 목록 화면 한 줄 - 대표상품은 주문의 첫 번째 주문상품 */
+@Data
+public class OrderListDto {
+    private Long orderId;
+    private String memberName;
+    private String itemName;   //대표상품 이름
+    private int orderPrice;    //대표상품 주문가격
+    private int count;         //대표상품 주문수량
+    private int totalPrice;    //주문 합계 (orders.total_price)
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderListDto(Long orderId, String memberName, String itemName, int orderPrice, int count,
+                        int totalPrice, OrderStatus status, LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.memberName = memberName;
+        this.itemName = itemName;
+        this.orderPrice = orderPrice;
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+}
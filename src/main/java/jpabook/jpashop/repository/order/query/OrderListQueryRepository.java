@@ -0,0 +1,141 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.QOrderItem;
+import jpabook.jpashop.repository.OrderListCursor;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+
+import static jpabook.jpashop.domain.QMember.member;
+import static jpabook.jpashop.domain.QOrder.order;
+import static jpabook.jpashop.domain.QOrderItem.orderItem;
+import static jpabook.jpashop.domain.item.QItem.item;
+
+/**
+ * 주문 목록 화면(/orders), 주문 검색 API용 조회
+ * - 엔티티를 넘기면 화면에서 행마다 member, orderItems, item을 지연 로딩한다. (1,000건이면 최대 3,001번)
+ * - 회원 이름, 대표상품(주문의 첫 번째 주문상품), 상태를 DTO로 쿼리 한 번에 가져온다.
+ * - 키셋 페이징: 정렬 값(orderDate 또는 totalPrice)과 id로 마지막으로 본 주문 다음부터 limit건만 조회한다.
+ *   인덱스(Order @Table 참고)의 정렬 순서대로 읽다가 limit에서 멈추므로 뒤 페이지도 비용이 같다.
+ */
+@Repository
+@ReadOnlyQuery
+public class OrderListQueryRepository {
+
+    private static final QOrderItem firstItem = new QOrderItem("firstItem");
+    private static final QOrderItem searchItem = new QOrderItem("searchItem");
+
+    private final JPAQueryFactory query;
+
+    public OrderListQueryRepository(EntityManager em) {
+        this.query = new JPAQueryFactory(em);
+    }
+
+    public List<OrderListDto> findOrderList(OrderSearch orderSearch, OrderListCursor after, int limit) {
+        return query
+                .select(Projections.constructor(OrderListDto.class,
+                        order.id,
+                        member.name,
+                        item.name,
+                        orderItem.orderPrice,
+                        orderItem.count,
+                        order.totalPrice,
+                        order.status,
+                        order.orderDate))
+                .from(order)
+                .join(order.member, member)
+                .join(order.orderItems, orderItem)
+                .join(orderItem.item, item)
+                .where(orderItem.id.eq(JPAExpressions //대표상품만 남겨서 주문당 한 줄
+                                .select(firstItem.id.min())
+                                .from(firstItem)
+                                .where(firstItem.order.eq(order))),
+                        statusEq(orderSearch.getOrderStatus()),
+                        nameStartsWith(orderSearch.getMemberName()),
+                        orderDateGoe(orderSearch.getOrderDateFrom()),
+                        orderDateLoe(orderSearch.getOrderDateTo()),
+                        containsItem(orderSearch.getItemId()),
+                        totalPriceGoe(orderSearch.getMinTotalPrice()),
+                        deliveryStatusEq(orderSearch.getDeliveryStatus()),
+                        after(orderSearch.getSort(), after))
+                .orderBy(orderBy(orderSearch.getSort()))
+                .limit(limit)
+                .fetch();
+    }
+
+    /* like에 입력값을 그대로 넘기면 %, _ 가 와일드카드로 동작한다. startsWith는 이스케이프한 뒤 '이름%'로 검색한다. */
+    private BooleanExpression nameStartsWith(String memberName) {
+        return StringUtils.hasText(memberName) ? member.name.startsWith(memberName) : null;
+    }
+
+    private BooleanExpression statusEq(OrderStatus statusCond) {
+        return statusCond != null ? order.status.eq(statusCond) : null;
+    }
+
+    private BooleanExpression orderDateGoe(LocalDate from) {
+        return from != null ? order.orderDate.goe(from.atStartOfDay()) : null;
+    }
+
+    /* 끝 날짜의 하루 전체를 포함 - 다음날 0시 미만 */
+    private BooleanExpression orderDateLoe(LocalDate to) {
+        return to != null ? order.orderDate.lt(to.plusDays(1).atStartOfDay()) : null;
+    }
+
+    /* 대표상품이 아니어도 주문에 이 상품이 있으면 포함 */
+    private BooleanExpression containsItem(Long itemId) {
+        if (itemId == null) {
+            return null;
+        }
+        return JPAExpressions.selectOne()
+                .from(searchItem)
+                .where(searchItem.order.eq(order), searchItem.item.id.eq(itemId))
+                .exists();
+    }
+
+    private BooleanExpression totalPriceGoe(Integer minTotalPrice) {
+        return minTotalPrice != null ? order.totalPrice.goe(minTotalPrice) : null;
+    }
+
+    private BooleanExpression deliveryStatusEq(DeliveryStatus deliveryStatus) {
+        return deliveryStatus != null ? order.delivery.status.eq(deliveryStatus) : null;
+    }
+
+    /* 커서 다음부터 - 정렬 값 범위 조건(<=, >=)을 앞에 둬서 인덱스 범위 스캔이 되게 한다. */
+    private BooleanExpression after(OrderSearch.OrderSort sort, OrderListCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        if (sort == OrderSearch.OrderSort.TOTAL_PRICE) {
+            return order.totalPrice.loe(cursor.getTotalPrice())
+                    .and(order.totalPrice.lt(cursor.getTotalPrice()).or(order.id.lt(cursor.getOrderId())));
+        }
+        if (sort == OrderSearch.OrderSort.OLDEST) {
+            return order.orderDate.goe(cursor.getOrderDate())
+                    .and(order.orderDate.gt(cursor.getOrderDate()).or(order.id.gt(cursor.getOrderId())));
+        }
+        return order.orderDate.loe(cursor.getOrderDate())
+                .and(order.orderDate.lt(cursor.getOrderDate()).or(order.id.lt(cursor.getOrderId())));
+    }
+
+    private OrderSpecifier<?>[] orderBy(OrderSearch.OrderSort sort) {
+        if (sort == OrderSearch.OrderSort.TOTAL_PRICE) {
+            return new OrderSpecifier<?>[]{order.totalPrice.desc(), order.id.desc()};
+        }
+        if (sort == OrderSearch.OrderSort.OLDEST) {
+            return new OrderSpecifier<?>[]{order.orderDate.asc(), order.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{order.orderDate.desc(), order.id.desc()};
+    }
+}
@@ -1,18 +1,23 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.support.ReadOnlyQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
+@ReadOnlyQuery
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
     private final EntityManager em;
+    private final OrderItemChunkLoader orderItemChunkLoader;
 
     /**
      * 컬렉션은 별도로 조회
@@ -84,19 +89,10 @@ public class OrderQueryRepository {
         return orderIds;
     }
 
-    /* 추출한 id값을 in절로 OrderItem 모두 가져옴  //쿼리 1번 실행 */
+    /* 추출한 id값을 in절로 OrderItem 모두 가져옴
+     * id가 많으면 in-chunk-size 단위로 나눠서 병렬로 조회한 뒤 합친다. (OrderItemChunkLoader 참고) */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                                " from OrderItem oi" +
-                                " join oi.item i" +
-                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
-
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream() // key가 orderId, 값이 OrderItemQueryDto인 Map 으로 변환.
-                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
-        return orderItemMap;
+        return orderItemChunkLoader.load(orderIds);
     }
 
 
@@ -108,7 +104,28 @@ public class OrderQueryRepository {
                         " join o.member m" +
                         " join o.delivery d" +
                         " join o.orderItems oi" +
-                        " join oi.item i", OrderFlatDto.class)
+                        " join oi.item i" +
+                        " order by o.id", OrderFlatDto.class)  //같은 주문의 row가 붙어서 나오도록 정렬 (OrderFlatFolder로 접기 위함)
                 .getResultList();
     }
+
+    /**
+     * 전체 주문 스트리밍 조회 (플랫 데이터, 주문 id 순 정렬)
+     * - getResultList()로 List에 다 올리지 않고, forward-only 커서(ScrollableResults 기반 Stream)로 한 row씩 읽는다.
+     * - fetchSize 만큼씩만 JDBC 드라이버가 가져오므로 주문 수와 상관없이 메모리 사용량이 일정하다.
+     * - 커넥션을 잡고 있으므로 반드시 트랜잭션 안에서 사용하고, 다 쓰면 close() 해야 한다. (try-with-resources)
+     */
+    public Stream<OrderFlatDto> streamAllbyDto_flat(int fetchSize) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " join o.orderItems oi" +
+                        " join oi.item i" +
+                        " order by o.id", OrderFlatDto.class)  //같은 주문의 row가 붙어서 나오도록 정렬
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
 }
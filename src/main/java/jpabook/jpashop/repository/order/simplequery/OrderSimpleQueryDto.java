@@ -14,6 +14,8 @@ public class OrderSimpleQueryDto {
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
+    private int totalPrice; //orders 테이블의 합계 컬럼 - order_item을 조회하지 않는다.
+    private int itemCount;
 
     /*의존관계는 한 방향으로 설계해야 한다. controller -> service -> repository*/
 
@@ -24,4 +26,11 @@ public class OrderSimpleQueryDto {
         this.orderStatus = orderStatus;
         this.address = address;
     }
+
+    public OrderSimpleQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address,
+                               int totalPrice, int itemCount) {
+        this(orderId, name, orderDate, orderStatus, address);
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+    }
 }
@@ -1,12 +1,15 @@
 package jpabook.jpashop.repository.order.simplequery;
 
+import jpabook.jpashop.support.ReadOnlyQuery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
+@ReadOnlyQuery
 @RequiredArgsConstructor
 public class OrderSimpleQueryRepository {
 
@@ -20,7 +23,7 @@ public class OrderSimpleQueryRepository {
 //                .getResultList();
 
         //new operation에서 엔티티를 바로 넘기는 것은 불가능.
-        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.itemCount)" +
                         " from Order o" +
                         " join o.member m" +
                         " join o.delivery d", OrderSimpleQueryDto.class) //select o 의 값이 Dto로 매칭 안됨.
@@ -29,4 +32,18 @@ public class OrderSimpleQueryRepository {
 
     }
 
+    /*
+     * 기간별 주문 합계 (리포트용) - orders 테이블만 읽는다.
+     * - 취소된 주문도 포함하므로 매출은 orderStatus로 걸러서 계산한다.
+     * */
+    public List<OrderTotalQueryDto> findOrderTotals(LocalDateTime from, LocalDateTime to) {
+        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderTotalQueryDto(o.id, o.orderDate, o.status, o.totalPrice, o.itemCount)" +
+                        " from Order o" +
+                        " where o.orderDate >= :from and o.orderDate < :to" +
+                        " order by o.orderDate, o.id", OrderTotalQueryDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
 }
@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository.order.simplequery;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OrderTotalQueryDto {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private int totalPrice;
+    private int itemCount;
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * GROUP BY 결과 한 줄 - key는 SalesDimension에 따라 상품 id(Long), 날짜(LocalDate), 주문상태(OrderStatus)
+ */
+@Getter
+@AllArgsConstructor
+public class SalesAggregate {
+    private Object key;
+    private long revenue;
+    private long units;
+
+    public SalesAggregate plus(SalesAggregate other) {
+        return new SalesAggregate(key, revenue + other.revenue, units + other.units);
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.repository.report;
+
+/**
+ * 매출 리포트를 묶는 기준 - 롤업(DailySales ds)과 주문(OrderItem oi join Order o)에서 각각 GROUP BY 할 식
+ */
+public enum SalesDimension {
+    ITEM("ds.itemId", "oi.item.id"),
+    DAY("ds.salesDate", "cast(o.orderDate as date)"),
+    STATUS("ds.status", "o.status");
+
+    private final String rollupKey;
+    private final String orderKey;
+
+    SalesDimension(String rollupKey, String orderKey) {
+        this.rollupKey = rollupKey;
+        this.orderKey = orderKey;
+    }
+
+    String rollupKey() {
+        return rollupKey;
+    }
+
+    String orderKey() {
+        return orderKey;
+    }
+}
@@ -0,0 +1,139 @@
+package jpabook.jpashop.repository.report;
+
+import jpabook.jpashop.domain.DailySales;
+import jpabook.jpashop.domain.DailySalesClosing;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.SalesRollupLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 매출 리포트 - 엔티티를 올리지 않고 DB에서 GROUP BY 한 결과만 가져온다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesReportRepository {
+
+    private final EntityManager em;
+
+    /* 주문 테이블에서 바로 집계 (오늘처럼 롤업이 없는 구간). status가 null이면 모든 상태 */
+    public List<SalesAggregate> sumOrders(SalesDimension dimension, LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        String key = dimension.orderKey();
+        TypedQuery<Object[]> query = em.createQuery("select " + key + ", sum(oi.orderPrice * oi.count), sum(oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.order o" +
+                        " where o.orderDate >= :from and o.orderDate < :to" +
+                        (status != null ? " and o.status = :status" : "") +
+                        " group by " + key, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return toAggregates(query.getResultList());
+    }
+
+    /* 롤업 테이블에서 집계 */
+    public List<SalesAggregate> sumRollup(SalesDimension dimension, LocalDate from, LocalDate to, OrderStatus status) {
+        String key = dimension.rollupKey();
+        TypedQuery<Object[]> query = em.createQuery("select " + key + ", sum(ds.revenue), sum(ds.units)" +
+                        " from DailySales ds" +
+                        " where ds.salesDate >= :from and ds.salesDate < :to" +
+                        (status != null ? " and ds.status = :status" : "") +
+                        " group by " + key, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return toAggregates(query.getResultList());
+    }
+
+    /* 롤업 row 만들기 - [from, to) 주문을 (날짜, 상품, 주문상태)별로 한 번에 GROUP BY */
+    public List<DailySales> aggregateDaily(LocalDate from, LocalDate to) {
+        List<Object[]> rows = em.createQuery("select cast(o.orderDate as date), oi.item.id, o.status, sum(oi.orderPrice * oi.count), sum(oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.order o" +
+                        " where o.orderDate >= :from and o.orderDate < :to" +
+                        " group by cast(o.orderDate as date), oi.item.id, o.status", Object[].class)
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .getResultList();
+        return rows.stream()
+                .map(r -> new DailySales(toLocalDate(r[0]), (Long) r[1], (OrderStatus) r[2],
+                        ((Number) r[3]).longValue(), ((Number) r[4]).longValue()))
+                .collect(toList());
+    }
+
+    public LocalDateTime findFirstOrderDate() {
+        return em.createQuery("select min(o.orderDate) from Order o", LocalDateTime.class)
+                .getSingleResult();
+    }
+
+    public Set<LocalDate> findClosedDays(LocalDate from, LocalDate to) {
+        return new HashSet<>(em.createQuery("select c.salesDate from DailySalesClosing c" +
+                        " where c.salesDate >= :from and c.salesDate < :to", LocalDate.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList());
+    }
+
+    public void saveRollup(List<DailySales> rows, Collection<LocalDate> closedDays) {
+        rows.forEach(em::persist);
+        closedDays.forEach(day -> em.persist(new DailySalesClosing(day)));
+    }
+
+    /*
+     * 롤업 락 - 트랜잭션이 끝날 때까지 롤업 만들기와 롤업 다시 열기가 번갈아 실행되지 않게 한다. (SalesRollupLock)
+     * - 락 row가 없으면(import.sql 없이 만든 스키마) 처음 잡는 쪽이 만든다.
+     * */
+    public void lockRollup() {
+        SalesRollupLock lock = em.find(SalesRollupLock.class, SalesRollupLock.ID, LockModeType.PESSIMISTIC_WRITE); //select ... for update
+        if (lock == null) {
+            em.persist(SalesRollupLock.create());
+            em.flush(); //같은 id를 넣으려는 다른 트랜잭션은 이 트랜잭션이 끝날 때까지 기다린다.
+        }
+    }
+
+    /*
+     * 롤업 다시 열기 - 지난 날짜의 주문 상태가 바뀌면(취소) 그 날짜의 롤업을 지운다. 다음 조회 때 다시 집계된다.
+     * - 롤업 락을 잡고 지운다. 그 날짜를 집계 중인 롤업이 있으면 그 롤업이 커밋된 뒤에 지우고,
+     *   이 트랜잭션이 먼저 락을 잡으면 롤업은 취소가 커밋된 뒤에 집계한다.
+     * */
+    public void reopenDays(Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        lockRollup();
+        em.createQuery("delete from DailySales ds where ds.salesDate in :days")
+                .setParameter("days", days)
+                .executeUpdate();
+        em.createQuery("delete from DailySalesClosing c where c.salesDate in :days")
+                .setParameter("days", days)
+                .executeUpdate();
+    }
+
+    private static List<SalesAggregate> toAggregates(List<Object[]> rows) {
+        return rows.stream()
+                .map(r -> new SalesAggregate(r[0] instanceof java.sql.Date ? toLocalDate(r[0]) : r[0],
+                        ((Number) r[1]).longValue(), ((Number) r[2]).longValue()))
+                .collect(toList());
+    }
+
+    /* cast(... as date)는 java.sql.Date로 나온다. */
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+    }
+}
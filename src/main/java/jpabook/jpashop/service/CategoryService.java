@@ -0,0 +1,49 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    /*
+     * 카테고리 생성 - parentId가 없으면 루트
+     * */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            Category parent = categoryRepository.findOne(parentId);
+            if (parent == null) {
+                throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + parentId);
+            }
+            parent.addChildCategory(category); //클로저 row 생성
+        }
+        categoryRepository.save(category);
+        return category.getId();
+    }
+
+    public CategoryTree tree() {
+        return categoryTreeCache.get();
+    }
+
+    /* 카테고리 아래 전체 상품 (예: 도서 > IT 아래 모든 하위 카테고리의 상품) */
+    public List<Item> findItems(Long categoryId, int offset, int limit) {
+        if (categoryTreeCache.get().find(categoryId) == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        }
+        return categoryRepository.findItemsInSubtree(categoryId, offset, limit);
+    }
+}
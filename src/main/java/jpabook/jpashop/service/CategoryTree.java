@@ -0,0 +1,90 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 트리 스냅샷 - 만든 뒤에는 바뀌지 않으므로 여러 스레드가 락 없이 같이 읽는다.
+ * - 카테고리가 바뀌면 고치지 않고 새로 만든다. (CategoryTreeCache)
+ */
+public final class CategoryTree {
+
+    private final List<Node> roots;
+    private final Map<Long, Node> nodes;
+
+    private CategoryTree(List<Node> roots, Map<Long, Node> nodes) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
+    /* rows: (id, 이름, 부모 id) */
+    static CategoryTree of(List<Object[]> rows) {
+        Map<Long, Node> nodes = new HashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            nodes.put(id, new Node(id, (String) row[1], (Long) row[2]));
+        }
+        List<Node> roots = new ArrayList<>();
+        for (Object[] row : rows) {
+            Node node = nodes.get((Long) row[0]);
+            Node parent = node.parentId != null ? nodes.get(node.parentId) : null;
+            if (parent != null) {
+                parent.children.add(node);
+            } else {
+                roots.add(node);
+            }
+        }
+        roots.forEach(root -> root.freeze(null));
+        return new CategoryTree(roots, nodes);
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public Node find(Long id) {
+        return nodes.get(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Getter
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private List<Node> children = new ArrayList<>();
+        private String path; //루트부터 이름을 이은 경로 (예: 도서 > IT)
+
+        private Node(Long id, String name, Long parentId) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+        }
+
+        private void freeze(String parentPath) {
+            path = parentPath == null ? name : parentPath + " > " + name;
+            children = Collections.unmodifiableList(children);
+            children.forEach(child -> child.freeze(path));
+        }
+
+        /* 자기 자신과 모든 자손 id */
+        public List<Long> subtreeIds() {
+            List<Long> ids = new ArrayList<>();
+            collect(ids);
+            return ids;
+        }
+
+        private void collect(List<Long> ids) {
+            ids.add(id);
+            children.forEach(child -> child.collect(ids));
+        }
+    }
+}
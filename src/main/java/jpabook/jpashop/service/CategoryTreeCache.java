@@ -0,0 +1,52 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.support.CategoryChangedEvent;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.support.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 카테고리 트리 전체를 메모리에 올려두고 같이 쓴다.
+ * - 카테고리는 거의 바뀌지 않으므로 조회마다 계층을 따라 LAZY 로딩하지 않고, 쿼리 한 번으로 만든 스냅샷을 재사용한다.
+ * - 카테고리가 저장/수정/삭제되면(CategoryChangedEvent) 커밋 후에 스냅샷을 버리고, 다음 조회 때 다시 만든다.
+ * - JDBC로 직접 넣은 카테고리는 감지하지 못하므로 넣은 쪽에서 invalidate()를 호출한다. (BulkDataGenerator)
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+    private volatile CategoryTree snapshot;
+    private long version; //invalidate 횟수 - 만드는 도중에 바뀐 스냅샷을 저장하지 않기 위해
+
+    public CategoryTree get() {
+        CategoryTree tree = snapshot;
+        if (tree != null) {
+            return tree;
+        }
+        long builtFrom;
+        synchronized (this) {
+            builtFrom = version;
+        }
+        tree = CategoryTree.of(categoryRepository.findAllNodes()); //쿼리 1번
+        synchronized (this) {
+            if (version == builtFrom) {
+                snapshot = tree;
+            }
+        }
+        return tree;
+    }
+
+    public synchronized void invalidate() {
+        version++;
+        snapshot = null;
+    }
+
+    /* 카테고리가 바뀌면(CategoryChangeListener) 커밋된 뒤에 버린다. 롤백되면 그대로 */
+    @EventListener
+    public void categoryChanged(CategoryChangedEvent event) {
+        TransactionHooks.afterCommit(this::invalidate);
+    }
+}
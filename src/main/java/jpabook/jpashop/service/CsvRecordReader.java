@@ -0,0 +1,135 @@
+package jpabook.jpashop.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV를 한 줄씩 읽는다. (파일 전체를 메모리에 올리지 않음)
+ * - 첫 줄은 헤더. 헤더 이름은 대소문자, '_'를 무시한다. (stock_quantity == stockQuantity)
+ * - 따옴표로 감싼 값 안의 쉼표, "" (따옴표 이스케이프)를 지원한다. 값 안의 줄바꿈은 지원하지 않는다.
+ * - 형식이 잘못된 줄은 예외 대신 error가 채워진 Record로 돌려줘서, 호출하는 쪽에서 그 줄만 건너뛸 수 있게 한다.
+ */
+class CsvRecordReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final List<String> header;
+    private long lineNumber = 1;
+
+    CsvRecordReader(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String headerLine = this.reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV 헤더가 없습니다.");
+        }
+        if (headerLine.startsWith("\uFEFF")) { //엑셀에서 저장한 UTF-8 BOM
+            headerLine = headerLine.substring(1);
+        }
+        header = new ArrayList<>();
+        for (String name : split(headerLine)) {
+            header.add(normalize(name));
+        }
+    }
+
+    /* 다음 레코드, 끝이면 null */
+    Record next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+
+        try {
+            List<String> fields = split(line);
+            if (fields.size() != header.size()) {
+                return Record.invalid(lineNumber, "컬럼 수가 헤더와 다릅니다. (" + fields.size() + " != " + header.size() + ")");
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                String value = fields.get(i).trim();
+                values.put(header.get(i), value.isEmpty() ? null : value);
+            }
+            return new Record(lineNumber, values, null);
+        } catch (IllegalArgumentException e) {
+            return Record.invalid(lineNumber, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    static class Record {
+        private final long lineNumber;
+        private final Map<String, String> values;
+        private final String error;
+
+        private Record(long lineNumber, Map<String, String> values, String error) {
+            this.lineNumber = lineNumber;
+            this.values = values;
+            this.error = error;
+        }
+
+        static Record invalid(long lineNumber, String error) {
+            return new Record(lineNumber, null, error);
+        }
+
+        long getLineNumber() {
+            return lineNumber;
+        }
+
+        String getError() {
+            return error;
+        }
+
+        /* 없는 컬럼이거나 빈 값이면 null */
+        String get(String column) {
+            return values.get(normalize(column));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.lookup.NameLookup;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.support.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * 상품 CSV 청크 저장 (ItemImportService가 청크마다 호출)
+ * - 청크마다 트랜잭션을 따로 커밋해서, 뒤쪽 청크가 실패해도 앞에서 커밋한 청크는 남는다.
+ * - 기존 상품은 IN 쿼리 한 번으로 조회하고, 끝나면 flush(JDBC 배치) + clear 해서 영속성 컨텍스트에 청크 하나만큼만 남는다.
+ * - 등록/수정된 상품명은 그 청크가 커밋된 뒤에 주문 화면 자동완성 인덱스(NameLookup)에 반영한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class ItemImportChunkWriter {
+
+    private final ItemRepository itemRepository;
+    private final EntityManager em;
+    private final NameLookup nameLookup;
+
+    /*
+     * 청크 하나를 새 트랜잭션으로 저장하고 커밋한다.
+     * - 형식/값이 잘못된 줄은 그 줄만 chunk에 실패로 남기고, flush/커밋이 실패하면(DB 제약 조건 등) 예외를 던져 이 청크만 롤백된다.
+     * */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void write(List<CsvRecordReader.Record> records, ItemImportResult.Chunk chunk) {
+        //수정 대상 상품을 한 번에 조회
+        Set<Long> ids = new HashSet<>();
+        for (CsvRecordReader.Record record : records) {
+            if (record.getError() == null && record.get("id") != null) {
+                try {
+                    ids.add(Long.parseLong(record.get("id")));
+                } catch (NumberFormatException ignored) {
+                    //아래에서 그 줄만 실패 처리
+                }
+            }
+        }
+        Map<Long, Item> existing = itemRepository.findAllById(ids).stream()
+                .collect(toMap(Item::getId, identity()));
+        List<Runnable> nameChanges = new ArrayList<>(records.size());
+
+        for (CsvRecordReader.Record record : records) {
+            if (record.getError() != null) {
+                chunk.reject(record.getLineNumber(), record.getError());
+                continue;
+            }
+            try {
+                if (record.get("id") == null) {
+                    Item item = newItem(record.get("dtype"));
+                    apply(item, record);
+                    em.persist(item);
+                    Long itemId = item.getId(); //엔티티 대신 값만 잡아둔다. (clear 후에도 커밋까지 상품 객체가 남지 않도록)
+                    String name = item.getName();
+                    nameChanges.add(() -> nameLookup.itemAdded(itemId, name));
+                    chunk.insert();
+                } else {
+                    Item item = existing.get(parseLong(record, "id"));
+                    if (item == null) {
+                        throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + record.get("id"));
+                    }
+                    if (record.get("dtype") != null && Hibernate.getClass(item) != newItem(record.get("dtype")).getClass()) {
+                        throw new IllegalArgumentException("상품 종류는 바꿀 수 없습니다. id=" + item.getId());
+                    }
+                    String oldName = item.getName();
+                    apply(item, record); //변경 감지
+                    Long itemId = item.getId();
+                    String newName = item.getName();
+                    nameChanges.add(() -> nameLookup.itemRenamed(itemId, oldName, newName));
+                    chunk.update();
+                }
+            } catch (IllegalArgumentException e) {
+                chunk.reject(record.getLineNumber(), e.getMessage());
+            }
+        }
+
+        em.flush(); //insert, update가 JDBC 배치로 나간다.
+        em.clear(); //영속성 컨텍스트에 쌓인 상품을 비워서 메모리 사용량을 일정하게 유지
+        TransactionHooks.afterCommit(() -> nameChanges.forEach(Runnable::run)); //이 청크가 커밋되면 바로 반영하고 버린다.
+    }
+
+    private Item newItem(String dtype) {
+        if (dtype == null) {
+            throw new IllegalArgumentException("상품 종류(dtype)가 없습니다.");
+        }
+        switch (dtype.toUpperCase(Locale.ROOT)) {
+            case "B":
+            case "BOOK":
+                return new Book();
+            case "A":
+            case "ALBUM":
+                return new Album();
+            case "M":
+            case "MOVIE":
+                return new Movie();
+            default:
+                throw new IllegalArgumentException("알 수 없는 상품 종류입니다. dtype=" + dtype);
+        }
+    }
+
+    /* 검증을 모두 통과한 뒤에 값을 바꾼다. (중간에 실패해서 일부 필드만 바뀐 상품이 flush 되지 않도록) */
+    private void apply(Item item, CsvRecordReader.Record record) {
+        String name = record.get("name");
+        if (name == null) {
+            throw new IllegalArgumentException("상품명이 없습니다.");
+        }
+        int price = parseNonNegativeInt(record, "price");
+        int stockQuantity = parseNonNegativeInt(record, "stockQuantity");
+
+        item.setName(name);
+        item.setPrice(price);
+        item.setStockQuantity(stockQuantity);
+        if (item instanceof Book) {
+            ((Book) item).setAuthor(record.get("author"));
+            ((Book) item).setIsbn(record.get("isbn"));
+        } else if (item instanceof Album) {
+            ((Album) item).setArtist(record.get("artist"));
+            ((Album) item).setEtc(record.get("etc"));
+        } else if (item instanceof Movie) {
+            ((Movie) item).setDirector(record.get("director"));
+            ((Movie) item).setActor(record.get("actor"));
+        }
+    }
+
+    private long parseLong(CsvRecordReader.Record record, String column) {
+        try {
+            return Long.parseLong(record.get(column));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " 값이 숫자가 아닙니다: " + record.get(column));
+        }
+    }
+
+    private int parseNonNegativeInt(CsvRecordReader.Record record, String column) {
+        String value = record.get(column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " 값이 없습니다.");
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " 값이 숫자가 아닙니다: " + value);
+        }
+        if (parsed < 0) {
+            throw new IllegalArgumentException(column + " 값은 0 이상이어야 합니다: " + value);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 상품 일괄 등록 결과 - 실패 사유는 앞에서부터 최대 100줄까지만 담는다. (실패 건수는 rejected)
+ * - chunks: 청크(트랜잭션)별 결과. 롤백된 청크는 committed=false, error에 사유
+ * */
+@Getter
+public class ItemImportResult {
+
+    private static final int MAX_REJECTIONS = 100;
+
+    private int inserted;
+    private int updated;
+    private int rejected;
+    private final List<Rejection> rejections = new ArrayList<>();
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /* 커밋된 청크의 건수를 합친다. */
+    void committed(Chunk chunk) {
+        chunk.committed = true;
+        inserted += chunk.inserted;
+        updated += chunk.updated;
+        for (Rejection rejection : chunk.lineRejections) {
+            reject(rejection.getLine(), rejection.getReason());
+        }
+        chunk.lineRejections.clear();
+        chunks.add(chunk);
+    }
+
+    /* 롤백된 청크 - 청크의 모든 줄이 실패다. */
+    void rolledBack(Chunk chunk, List<Long> lineNumbers, String reason) {
+        chunk.inserted = 0;
+        chunk.updated = 0;
+        chunk.rejected = lineNumbers.size();
+        chunk.error = reason;
+        chunk.lineRejections.clear();
+        for (Long lineNumber : lineNumbers) {
+            reject(lineNumber, reason);
+        }
+        chunks.add(chunk);
+    }
+
+    private void reject(long lineNumber, String reason) {
+        rejected++;
+        if (rejections.size() < MAX_REJECTIONS) {
+            rejections.add(new Rejection(lineNumber, reason));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rejection {
+        private long line; //CSV 줄 번호 (헤더가 1)
+        private String reason;
+    }
+
+    /* 청크 하나의 결과 - ItemImportChunkWriter가 채우고, 커밋/롤백이 정해지면 전체 결과에 합친다. */
+    @Getter
+    public static class Chunk {
+        private final long firstLine;
+        private final long lastLine;
+        private int inserted;
+        private int updated;
+        private int rejected;
+        private boolean committed;
+        private String error; //롤백된 이유
+        @Getter(AccessLevel.NONE)
+        private final List<Rejection> lineRejections = new ArrayList<>(); //커밋될 때까지만 들고 있는다.
+
+        Chunk(long firstLine, long lastLine) {
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+
+        void insert() {
+            inserted++;
+        }
+
+        void update() {
+            updated++;
+        }
+
+        void reject(long lineNumber, String reason) {
+            rejected++;
+            lineRejections.add(new Rejection(lineNumber, reason));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * CSV 상품 일괄 등록/수정
+ * - 컬럼: id, dtype(B/A/M 또는 Book/Album/Movie), name, price, stockQuantity, author, isbn, artist, etc, director, actor
+ * - id가 없으면 새로 등록, 있으면 그 상품을 수정한다. (없는 id, 상품 종류 변경은 실패 처리)
+ * - CHUNK_SIZE줄씩 읽어서 청크마다 트랜잭션을 따로 커밋한다. (ItemImportChunkWriter)
+ *   영속성 컨텍스트, 커밋 후 작업 모두 청크 하나만큼만 잡고 있으므로 파일 크기와 상관없이 메모리 사용량이 일정하다.
+ * - 형식이 잘못된 줄은 건너뛰고 결과에 사유를 남긴다. DB에서 실패한 청크는 그 청크만 롤백하고 다음 청크를 계속 처리한다.
+ * - 결과는 전체 합계와 청크별(줄 범위, 커밋 여부) 결과를 같이 돌려준다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemImportService {
+
+    static final int CHUNK_SIZE = 500; //hibernate.jdbc.batch_size의 배수
+
+    private final ItemImportChunkWriter chunkWriter;
+
+    /* 파일 전체를 감싸는 트랜잭션을 만들지 않는다. (청크마다 커밋) */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ItemImportResult importCsv(Reader reader) throws IOException {
+        ItemImportResult result = new ItemImportResult();
+        try (CsvRecordReader csv = new CsvRecordReader(reader)) {
+            List<CsvRecordReader.Record> chunk = new ArrayList<>(CHUNK_SIZE);
+            CsvRecordReader.Record record;
+            while ((record = csv.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, result);
+            }
+        }
+        return result;
+    }
+
+    private void importChunk(List<CsvRecordReader.Record> records, ItemImportResult result) {
+        ItemImportResult.Chunk chunk = new ItemImportResult.Chunk(
+                records.get(0).getLineNumber(), records.get(records.size() - 1).getLineNumber());
+        try {
+            chunkWriter.write(records, chunk);
+            result.committed(chunk);
+        } catch (PersistenceException | DataAccessException e) { //이 청크만 롤백됨
+            List<Long> lineNumbers = records.stream().map(CsvRecordReader.Record::getLineNumber).collect(toList());
+            result.rolledBack(chunk, lineNumbers, "청크 저장 실패 (" + chunk.getFirstLine() + "~" + chunk.getLastLine() + "줄 롤백): " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.item.query.ItemListDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ItemPage {
+    private List<ItemListDto> items;
+    private String next; //다음 페이지 커서. 마지막 페이지면 null
+}
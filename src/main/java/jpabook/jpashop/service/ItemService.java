@@ -2,7 +2,13 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.lookup.NameLookup;
+import jpabook.jpashop.repository.ItemCursor;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemSearch;
+import jpabook.jpashop.repository.item.query.ItemListDto;
+import jpabook.jpashop.repository.item.query.ItemQueryRepository;
+import jpabook.jpashop.support.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,16 +21,23 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ItemQueryRepository itemQueryRepository;
+    private final NameLookup nameLookup;
 
     @Transactional
     public void saveItem(Item item) {
+        boolean isNew = item.getId() == null; //수정은 updateItem으로 하므로 새 상품만 자동완성 인덱스에 반영한다.
         itemRepository.save(item);
+        if (isNew) {
+            TransactionHooks.afterCommit(() -> nameLookup.itemAdded(item.getId(), item.getName()));
+        }
     }
 
     /*변경감지를 이용한 방법 */
-    @Transactional //트랜잭션이 커밋됨 => JPA는 flush()를 날림 => 영속성 컨텍스트에서 변경된 값을 update하는 쿼리가 날아감.
+    @Transactional //트랜잭션이 커밋됨 => JPA는 flush()를 날림 => 영속성 컨텍스트에서 변경된 값을 update하는 쿼리가 날아감. 2차 캐시(READ_WRITE)도 커밋 시점에 같이 갱신된다.
     public Item updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item findItem = itemRepository.findOne(itemId);  //id로 db에 있는 영속상태의 item을 찾아옴.
+        String oldName = findItem.getName();
         //setter를 사용한 안좋은 예. 조금만 복잡해져도 도대체 어디서 변경이 되는지 알아보기 힘들다.
         findItem.setName(name);
         findItem.setPrice(price);
@@ -34,14 +47,51 @@ public class ItemService {
 //        findItem.change(price, name, stockQuantity);
 
         //파라미터 개수가 많으면, Dto를 활용하자.
+        TransactionHooks.afterCommit(() -> nameLookup.itemRenamed(itemId, oldName, name));
         return findItem;
     }
 
 
+    /*
+     * 재고 샤딩 (플래시 세일처럼 한 상품에 주문이 몰릴 때 opt-in)
+     * 재고를 나누는 동안 기존 방식의 재고 차감이 끼어들지 않도록 상품 row를 잠근다.
+     * */
+    @Transactional
+    public void shardStock(Long itemId, int shardCount) {
+        Item item = itemRepository.findOneForUpdate(itemId);
+        item.shardStock(shardCount);
+    }
+
+    /*
+     * 재고 샤딩 해제 - 주문이 잦아든 상품을 다시 한 row 재고로 돌린다.
+     * 합치는 동안 들어온 샤드 차감은 샤드 version을 올리므로, 커밋 시 낙관적 락 예외로 실패한다. (재고를 잃지 않음)
+     * */
+    @Transactional
+    public void unshardStock(Long itemId) {
+        Item item = itemRepository.findOneForUpdate(itemId);
+        item.unshardStock();
+    }
+
+
     public List<Item> findItems() {
         return itemRepository.findAll();
     }
 
+    /*
+     * 상품 목록 (키셋 페이징) - after는 이전 페이지의 next 커서, 첫 페이지는 null
+     * */
+    public ItemPage findItemPage(ItemSearch itemSearch, String after, int limit) {
+        ItemCursor cursor = ItemCursor.decode(after, itemSearch.getSort());
+        List<ItemListDto> items = itemQueryRepository.findItemList(itemSearch, cursor, limit + 1); //다음 페이지 존재 여부를 알기 위해 1건 더 조회
+
+        if (items.size() <= limit) {
+            return new ItemPage(items, null);
+        }
+        items = items.subList(0, limit);
+        ItemListDto last = items.get(limit - 1);
+        return new ItemPage(items, new ItemCursor(itemSearch.getSort(), last.getId(), last.getName()).encode());
+    }
+
     public Item findOne(Long itemId) {
         return itemRepository.findOne(itemId);
     }
@@ -0,0 +1,94 @@
+package jpabook.jpashop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 Bloom filter - 가입할 때 중복 검사 SELECT를 건너뛰기 위한 앞단 필터
+ * - mightContain()이 false면 그 이름의 회원은 확실히 없다. true면 있을 수도 있으므로 DB를 조회한다.
+ * - 이름을 지우지는 못한다. 이름이 바뀌거나 가입이 롤백돼도 남지만, 오탐(불필요한 SELECT)만 늘 뿐 결과는 틀리지 않는다.
+ * - 시작할 때 전체 이름을 읽어서 채우고(ApplicationReadyEvent), 다 채우기 전에는 항상 true(DB 조회)를 돌려준다.
+ * - 다른 인스턴스에서 가입한 이름은 모르므로, 최종 판단은 member.name 유니크 제약(uk_member_name)이 한다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private static final int HASHES = 7; //이름당 10비트, 해시 7개면 오탐률 약 1%
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long mask;
+    private volatile boolean loaded;
+
+    public MemberNameFilter(JdbcTemplate jdbcTemplate,
+                            @Value("${jpashop.member-name-filter.expected-names:4000000}") long expectedNames) {
+        this.jdbcTemplate = jdbcTemplate;
+        long bitCount = Long.highestOneBit(Math.max(expectedNames * 10, 64) - 1) << 1; //2의 거듭제곱으로 올림
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+        this.mask = bitCount - 1;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long[] count = new long[1];
+        jdbcTemplate.query("select name from member", (RowCallbackHandler) rs -> {
+            put(rs.getString(1));
+            count[0]++;
+        });
+        loaded = true;
+        log.info("회원 이름 필터 로딩 완료: {}명", count[0]);
+    }
+
+    public boolean mightContain(String name) {
+        if (!loaded || name == null) {
+            return true;
+        }
+        long hash = hash(name);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long index = (hash + i * step) & mask;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long index = (hash + i * step) & mask;
+            long bit = 1L << index; //shift는 하위 6비트만 쓴다.
+            bits.accumulateAndGet((int) (index >>> 6), bit, (word, b) -> word | b);
+        }
+    }
+
+    /* FNV-1a 64비트 + SplitMix64 마무리 (String.hashCode는 32비트라 이름이 많으면 충돌이 잦다) */
+    private static long hash(String name) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
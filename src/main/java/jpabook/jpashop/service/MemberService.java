@@ -1,7 +1,11 @@
 package jpabook.jpashop.service;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.lookup.NameLookup;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.support.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; //@Transaction는 spring이 제공하는 것을 쓸 것.
 import java.util.List;
@@ -12,7 +16,11 @@ import java.util.List;
 @RequiredArgsConstructor //Lombok 기능. 초기화 되지 않은 final 필드와 @NonNull 어노테이션이 붙은 필드에 대한 생성자 생성
 public class MemberService {
 
+    private static final String UNIQUE_NAME_CONSTRAINT = "uk_member_name"; //Member @Table
+
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final NameLookup nameLookup;
 
     /*
     * 생성자 주입을 Lombok의 어노테이션으로 대체할 수 있음.
@@ -31,13 +39,21 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member);  //중복 회원 검증
         memberRepository.save(member);  // em.persist(member) => 영속성 컨텍스트에 member객체의 @Id 값이 key 로, member 엔티티가 value 형태로 저장됨. db에 들어간 시점이 아니어도 id필드에 값을 채워줌.
+        memberNameFilter.put(member.getName());
+        flushMemberName();
+        TransactionHooks.afterCommit(() -> nameLookup.memberAdded(member.getId(), member.getName())); //주문 화면 자동완성
         return member.getId();  //그러므로 값을 꺼내면 항상 값이 있다는 것이 보장됨.
     }
 
     /*
     * 중복 회원 검증  // TIP : WAS가 여러대이므로, 두 클라이언트가 동시에 작업 수행하게되어 validation을 통과하게 되면, 같은 이름 회원이 2개 저장될 수 있으므로, DB단에서 name 컬럼을 유니크값으로 잡아주도록 한다.
+    * - 이름 필터(MemberNameFilter)에 없는 이름은 확실히 처음 보는 이름이므로 SELECT를 생략한다.
+    * - 여기를 통과해도 동시에 같은 이름으로 가입하면 flushMemberName()에서 유니크 제약(uk_member_name)에 걸린다.
     * */
     private void validateDuplicateMember(Member member) {
+        if (!memberNameFilter.mightContain(member.getName())) {
+            return;
+        }
         List<Member> findMembers = memberRepository.findByName(member.getName()); // 멀티쓰레드 상황을 고려해서 DB에서 NAME을 Unique값으로 잡아주는 것이 안전하다.
         if (!findMembers.isEmpty()) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
@@ -62,9 +78,36 @@ public class MemberService {
     @Transactional //트랜잭션 시작
     public void update(Long id, String name) { /* 만약, public member update() 이런식으로 변경한 member를 반환하게 되면, CQS 원칙을 위배하게 된다. */
         Member member = memberRepository.findById(id).get(); //영속성 컨텍스트에서 findOne해서 찾음 -> 찾은게 없으므로 DB에서 가져와서 영속성 컨텍스트에 올리고, member변수에 반환. 현재 member는 영속상태
+        String oldName = member.getName();
         member.setName(name); //영속상태의 member의 속성값 변경.
+        memberNameFilter.put(name);
+        flushMemberName(); //다른 회원과 이름이 겹치면 커밋 전에 중복 회원 예외로 알려준다.
+        TransactionHooks.afterCommit(() -> nameLookup.memberRenamed(id, oldName, name));
     }//트랜잭션 종료되고 commit되기 직전 시점에 jpa가 flush()를 하고, DB commit이 일어난다.
 
+    /*
+    * 유니크 제약 위반을 중복 회원 예외로 바꾼다.
+    * 커밋 시점에 flush되면 트랜잭션 밖(프록시)에서 DataIntegrityViolationException이 터지므로, 메서드 안에서 flush한다.
+    * */
+    private void flushMemberName() {
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateName(e)) {
+                throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+            throw e;
+        }
+    }
+
+    private boolean isDuplicateName(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName(); //H2: PUBLIC.UK_MEMBER_NAME_INDEX_8 ...
+        return constraintName != null && constraintName.toLowerCase().contains(UNIQUE_NAME_CONSTRAINT);
+    }
+
     /*flush의 동작과정
     * - 변경 감지(dirty checking -> 수정된 Entity를 쓰기 지연 SQL 저장소에 등록 -> 지연 저장소의 Query를 DB에 전송
     * */
@@ -0,0 +1,24 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+ * 일괄 주문 한 건 - 회원 한 명이 여러 상품을 한 주문으로
+ * */
+@Getter
+@AllArgsConstructor
+public class OrderBatchCommand {
+
+    private Long memberId;
+    private List<Line> lines;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private Long itemId;
+        private int count;
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * 일괄 주문 한 건의 처리 결과 - index는 요청 목록에서의 순서
+ * */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderBatchResult {
+
+    private int index;
+    private boolean success;
+    private Long orderId;   //실패하면 null
+    private String message; //실패 사유
+
+    public static OrderBatchResult success(int index, Long orderId) {
+        return new OrderBatchResult(index, true, orderId, null);
+    }
+
+    public static OrderBatchResult failure(int index, String message) {
+        return new OrderBatchResult(index, false, null, message);
+    }
+}
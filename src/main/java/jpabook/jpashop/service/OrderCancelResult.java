@@ -0,0 +1,32 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 일괄 취소 결과 - 취소된 주문 수와 취소하지 못한 주문별 사유
+ * */
+@Getter
+public class OrderCancelResult {
+
+    private int cancelled;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    void cancel(int count) {
+        cancelled += count;
+    }
+
+    void reject(Long orderId, String reason) {
+        rejections.add(new Rejection(orderId, reason));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rejection {
+        private Long orderId;
+        private String reason;
+    }
+}
@@ -1,28 +1,64 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemStockShardRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.report.SalesReportRepository;
+import jpabook.jpashop.support.TransactionHooks;
+import jpabook.jpashop.trending.TrendingItemTracker;
+import jpabook.jpashop.trending.TrendingWindow;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Comparator.comparing;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int MAX_BATCH_ORDERS = 500;
+    private static final int IN_CHUNK_SIZE = 1000;   //일괄 취소 시 IN 절에 넣을 주문 id 수
+    public static final int MAX_BULK_CANCEL = 10_000;
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ItemStockShardRepository itemStockShardRepository;
+    private final SalesReportRepository salesReportRepository;
+    private final TrendingItemTracker trendingItemTracker;
+    private final EntityManager em;
 
     /*
      * 주문
@@ -38,8 +74,11 @@ public class OrderService {
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
+        //재고 차감 - 조건부 UPDATE 한 번으로 처리 (동시 주문 시 초과 판매 방지, 재고 부족이면 NotEnoughStockException)
+        removeStock(item, count);
+
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count); // 생성자 대신 정적 생성 메서드를 통해 객체 생성
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count); // 생성자 대신 정적 생성 메서드를 통해 객체 생성
 
         /*협업 시에 다른 개발자가 이런 식으로 다른 방식으로 생성하는 경우가 생길 수 있으므로, 기본 생성자의 접근제한자를 지정해서 사전에 막아야 함.*/
 //        OrderItem orderItem1 = new OrderItem();
@@ -50,10 +89,186 @@ public class OrderService {
 
         //주문 저장
         orderRepository.save(order); //Cascade 옵션을 all로 설정했기 때문에, persist()를 order 하나만 해줘도, orderItem과 delivery 모두 영속성컨텍스트에 persist된다.
+        trackOrdered(order);
 
         return order.getId();
     }
 
+    /*
+     * 일괄 주문
+     * - 여러 회원의 여러 주문(주문마다 여러 상품)을 트랜잭션 하나로 처리한다.
+     * - 회원, 상품은 IN 쿼리 한 번씩으로 미리 조회한다.
+     * - 재고는 배치 전체를 상품별로 합쳐서 상품 id 순으로 뺀다. (removeStocks 참고)
+     * - 재고 차감이 모두 끝난 뒤에 주문을 한꺼번에 persist 하므로, insert는 flush 시점에 테이블별로 정렬(order_inserts)되어 JDBC 배치로 나간다.
+     * - 재고 부족이나 잘못된 회원/상품은 그 주문만 실패로 기록하고 나머지 주문은 진행한다.
+     * */
+    @Transactional
+    public List<OrderBatchResult> orderBatch(List<OrderBatchCommand> commands) {
+        if (commands.size() > MAX_BATCH_ORDERS) {
+            throw new IllegalArgumentException("한 번에 주문할 수 있는 건수는 " + MAX_BATCH_ORDERS + "건까지입니다.");
+        }
+
+        //엔티티 조회 - 회원, 상품 각각 IN 쿼리 한 번
+        Set<Long> memberIds = commands.stream()
+                .map(OrderBatchCommand::getMemberId)
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        Set<Long> itemIds = commands.stream()
+                .filter(command -> command.getLines() != null)
+                .flatMap(command -> command.getLines().stream())
+                .map(OrderBatchCommand.Line::getItemId)
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        Map<Long, Member> members = memberRepository.findAllById(memberIds).stream()
+                .collect(toMap(Member::getId, identity()));
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(toMap(Item::getId, identity()));
+
+        //검증 - 회원/상품이 없거나 수량이 잘못된 주문은 여기서 실패
+        Map<Integer, Map<Long, Integer>> demands = new LinkedHashMap<>(); //주문 순번 -> (상품 id -> 수량)
+        Map<Integer, String> failures = new HashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            try {
+                demands.put(i, validate(commands.get(i), members, items));
+            } catch (IllegalArgumentException e) {
+                failures.put(i, e.getMessage());
+            }
+        }
+
+        //재고 차감 - 배치 전체를 상품 id 순으로. 재고가 부족한 주문은 demands에서 빠지고 failures에 기록된다.
+        removeStocks(demands, items, failures);
+
+        //주문 생성 (아직 persist 하지 않음)
+        Map<Integer, Order> placedOrders = new LinkedHashMap<>();
+        demands.keySet().forEach(i -> placedOrders.put(i, createOrder(commands.get(i), members, items)));
+
+        //주문 저장 - Cascade로 orderItem, delivery도 같이 persist. 시퀀스는 pooled라서 id 발급에 쿼리가 거의 나가지 않는다.
+        placedOrders.values().forEach(orderRepository::save);
+        placedOrders.values().forEach(this::trackOrdered);
+
+        List<OrderBatchResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            Order order = placedOrders.get(i);
+            results.add(order != null
+                    ? OrderBatchResult.success(i, order.getId())
+                    : OrderBatchResult.failure(i, failures.get(i)));
+        }
+        return results;
+    }
+
+    /* 주문 한 건 검증 - 같은 상품은 수량을 합친다. (상품 id -> 수량) */
+    private Map<Long, Integer> validate(OrderBatchCommand command, Map<Long, Member> members, Map<Long, Item> items) {
+        if (!members.containsKey(command.getMemberId())) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + command.getMemberId());
+        }
+        if (command.getLines() == null || command.getLines().isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (OrderBatchCommand.Line line : command.getLines()) {
+            if (!items.containsKey(line.getItemId())) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+            }
+            if (line.getCount() < 1) {
+                throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. itemId=" + line.getItemId());
+            }
+            counts.merge(line.getItemId(), line.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    /*
+     * 일괄 주문 재고 차감
+     * - 배치 전체의 상품별 수량을 합쳐서, 상품 id 순으로 상품당 조건부 UPDATE 한 번씩 뺀다.
+     *   동시에 들어온 일괄 주문끼리(단건 주문은 상품 하나) row 락을 항상 상품 id 순서로 잡으므로 서로 엇갈려 기다리는 데드락이 없다.
+     * - 합계만큼 재고가 없는 상품은 그 상품을 주문한 주문만 주문 순서대로 하나씩 빼고, 안 되는 주문은 실패 처리한다.
+     *   실패한 주문이 앞 상품(더 작은 id, 이미 잠근 row)에서 뺀 재고는 마지막에 한꺼번에 되돌린다.
+     * - 조건부 UPDATE는 JDBC로 직접 실행하므로 hibernate.jdbc.batch_size의 배치 대상이 아니다. 대신 주문/라인 수와 상관없이
+     *   상품 종류당 UPDATE 한 번 + refresh 한 번이다. (되돌리는 재고는 ItemRepository.addStocks의 JDBC 배치 한 번)
+     * */
+    private void removeStocks(Map<Integer, Map<Long, Integer>> demands, Map<Long, Item> items, Map<Integer, String> failures) {
+        Set<Long> itemIds = new TreeSet<>();
+        demands.values().forEach(demand -> itemIds.addAll(demand.keySet()));
+
+        Map<Long, Integer> restoreCounts = new HashMap<>();
+        for (Long itemId : itemIds) {
+            Item item = items.get(itemId);
+            int total = demands.values().stream()
+                    .mapToInt(demand -> demand.getOrDefault(itemId, 0)) //앞 상품에서 실패한 주문은 이미 빠져 있다.
+                    .sum();
+            if (total == 0 || tryRemoveStock(item, total)) {
+                continue;
+            }
+
+            Iterator<Map.Entry<Integer, Map<Long, Integer>>> iterator = demands.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Map<Long, Integer>> entry = iterator.next();
+                Integer count = entry.getValue().get(itemId);
+                if (count == null || tryRemoveStock(item, count)) {
+                    continue;
+                }
+                failures.put(entry.getKey(), "need more stock. itemId=" + itemId);
+                entry.getValue().forEach((removedItemId, removedCount) -> {
+                    if (removedItemId < itemId) {
+                        restoreCounts.merge(removedItemId, removedCount, Integer::sum);
+                    }
+                });
+                iterator.remove();
+            }
+        }
+
+        restoreStocks(restoreCounts);
+        itemIds.stream()
+                .map(items::get)
+                .filter(item -> !item.isStockSharded()) //샤드는 차감할 때 refresh 된다.
+                .forEach(itemRepository::refreshStock);
+    }
+
+    /* 일괄 주문용 재고 차감 시도 - 부족하면 false (엔티티 refresh는 removeStocks에서 상품당 한 번) */
+    private boolean tryRemoveStock(Item item, int count) {
+        if (!item.isStockSharded()) {
+            return itemRepository.tryRemoveStock(item.getId(), count);
+        }
+        try {
+            itemStockShardRepository.removeStock(item, count);
+            return true;
+        } catch (NotEnoughStockException e) {
+            return false;
+        }
+    }
+
+    /* 배송정보, 주문상품, 주문 생성 */
+    private Order createOrder(OrderBatchCommand command, Map<Long, Member> members, Map<Long, Item> items) {
+        Member member = members.get(command.getMemberId());
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        OrderItem[] orderItems = command.getLines().stream()
+                .map(line -> {
+                    Item item = items.get(line.getItemId());
+                    return OrderItem.createReservedOrderItem(item, item.getPrice(), line.getCount());
+                })
+                .toArray(OrderItem[]::new);
+        return Order.createOrder(member, delivery, orderItems);
+    }
+
+    private void removeStock(Item item, int count) {
+        if (item.isStockSharded()) {
+            itemStockShardRepository.removeStock(item, count); //주문이 몰리는 상품은 샤드 중 하나에서 차감
+        } else {
+            itemRepository.removeStock(item, count);
+        }
+    }
+
+    /* 재고 복구 (상대값 UPDATE) - 샤딩된 상품은 샤드 하나에 더한다. 엔티티로 더하면(dirty checking) 그 사이 들어온 주문과 충돌한다. */
+    private void addStock(Item item, int count) {
+        if (item.isStockSharded()) {
+            itemStockShardRepository.addStock(item, count);
+        } else {
+            itemRepository.addStock(item, count);
+        }
+    }
+
     /*
      * 주문 취소
      * */
@@ -61,14 +276,121 @@ public class OrderService {
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
-        //주문 취소
-        order.cancel(); //JPA가 dirty checking을 해서 변경된 부분만 업데이트하는 쿼리가 날아간다.
+        //주문 취소 - 상태는 dirty checking으로, 재고는 일괄 취소와 같은 상대값 UPDATE로 되돌린다. (상품 id 순)
+        order.cancelReserved();
+        order.getOrderItems().stream()
+                .sorted(comparing(orderItem -> orderItem.getItem().getId()))
+                .forEach(orderItem -> addStock(orderItem.getItem(), orderItem.getCount()));
+        reopenSales(Collections.singleton(order.getOrderDate().toLocalDate()));
+        trackCancelled(order);
     }
 
     /*
-    * 주문 검색
-    * */
-    public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAll(orderSearch);
+     * 일괄 취소 (결제 실패 배치 등)
+     * - 주문을 하나씩 취소하면 주문마다 트랜잭션, 상품 조회, 재고 UPDATE가 따로 나간다.
+     * - IN_CHUNK_SIZE개씩: 주문+배송 조회(잠금) 1번 -> 상태 변경 벌크 UPDATE 1번 -> 상품별 수량 합계 1번
+     * - 재고는 모든 청크의 상품별 수량을 합쳐서 상품당 UPDATE 한 번으로 복구한다.
+     * - 배송 완료, 이미 취소된 주문, 없는 주문은 취소하지 않고 사유를 남긴다.
+     * - 벌크 연산 후 영속성 컨텍스트를 비운다. (이미 조회해 둔 주문/상품 엔티티는 DB와 다른 값을 가지고 있으므로)
+     * - 한 번에 최대 MAX_BULK_CANCEL건 (한 트랜잭션이 너무 많은 row를 잠그지 않도록)
+     * */
+    @Transactional
+    public OrderCancelResult cancelOrders(List<Long> orderIds) {
+        if (orderIds.size() > MAX_BULK_CANCEL) {
+            throw new IllegalArgumentException("한 번에 취소할 수 있는 주문은 최대 " + MAX_BULK_CANCEL + "건입니다. size=" + orderIds.size());
+        }
+        OrderCancelResult result = new OrderCancelResult();
+        List<Long> distinctIds = orderIds.stream().distinct().collect(toList());
+        Map<Long, Integer> restoreCounts = new HashMap<>();
+        Set<LocalDate> orderDays = new HashSet<>();
+        List<Order> recentOrders = new ArrayList<>(); //인기 상품 집계 구간(24시간) 안의 주문
+        LocalDateTime trendingFrom = LocalDateTime.now().minus(TrendingWindow.ONE_DAY.getMillis(), ChronoUnit.MILLIS);
+
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctIds.size()));
+
+            //취소 가능 여부 확인
+            Map<Long, Order> orders = orderRepository.findAllWithDeliveryForUpdate(chunk).stream()
+                    .collect(toMap(Order::getId, identity()));
+            List<Long> cancellable = new ArrayList<>();
+            for (Long orderId : chunk) {
+                Order order = orders.get(orderId);
+                if (order == null) {
+                    result.reject(orderId, "존재하지 않는 주문입니다.");
+                } else if (order.getStatus() == OrderStatus.CANCEL) {
+                    result.reject(orderId, "이미 취소된 주문입니다.");
+                } else if (order.getDelivery().getStatus() == DeliveryStatus.COMP) {
+                    result.reject(orderId, "이미 배송완료된 상품은 취소가 불가능합니다.");
+                } else {
+                    cancellable.add(orderId);
+                    orderDays.add(order.getOrderDate().toLocalDate());
+                    if (order.getOrderDate().isAfter(trendingFrom)) {
+                        recentOrders.add(order);
+                    }
+                }
+            }
+            if (cancellable.isEmpty()) {
+                continue;
+            }
+
+            //상태 변경 + 복구할 재고 합산
+            result.cancel(orderRepository.cancelAll(cancellable));
+            orderRepository.sumCountByItem(cancellable)
+                    .forEach((itemId, count) -> restoreCounts.merge(itemId, count, Integer::sum));
+        }
+
+        restoreStocks(restoreCounts);
+        reopenSales(orderDays);
+        recentOrders.forEach(this::trackCancelled); //orderItems는 batch fetch(IN)로 조회
+        em.clear();
+        return result;
+    }
+
+    /*
+     * 검색 조건으로 일괄 취소 (최대 MAX_BULK_CANCEL건)
+     * */
+    @Transactional
+    public OrderCancelResult cancelOrders(OrderSearch orderSearch) {
+        return cancelOrders(orderRepository.findIds(orderSearch, MAX_BULK_CANCEL));
+    }
+
+    /* 커밋된 주문/취소만 인기 상품 집계에 반영한다. 엔티티 대신 값만 넘긴다. (커밋 후에는 영속성 컨텍스트가 닫혀있음) */
+    private void trackOrdered(Order order) {
+        Map<Long, Integer> counts = countByItem(order);
+        TransactionHooks.afterCommit(() -> counts.forEach(trendingItemTracker::recordOrder));
+    }
+
+    private void trackCancelled(Order order) {
+        Map<Long, Integer> counts = countByItem(order);
+        LocalDateTime orderDate = order.getOrderDate();
+        TransactionHooks.afterCommit(() -> counts.forEach((itemId, count) -> trendingItemTracker.recordCancel(itemId, count, orderDate)));
+    }
+
+    private static Map<Long, Integer> countByItem(Order order) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            counts.merge(orderItem.getItem().getId(), orderItem.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    /* 지난 날짜 주문이 취소되면 그 날짜의 매출 롤업을 다시 만들게 한다. */
+    private void reopenSales(Set<LocalDate> orderDays) {
+        LocalDate today = LocalDate.now();
+        salesReportRepository.reopenDays(orderDays.stream()
+                .filter(day -> day.isBefore(today))
+                .collect(toSet()));
+    }
+
+    /* 샤딩되지 않은 상품은 JDBC 배치 한 번으로, 샤딩된 상품은 샤드 하나에 더한다. */
+    private void restoreStocks(Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> shardCounts = itemRepository.findStockShardCounts(counts.keySet());
+        Map<Long, Integer> plainCounts = new HashMap<>(counts);
+        shardCounts.forEach((itemId, shardCount) ->
+                itemStockShardRepository.addStock(itemId, shardCount, plainCounts.remove(itemId)));
+        itemRepository.addStocks(plainCounts);
     }
 }
@@ -0,0 +1,67 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.DailySales;
+import jpabook.jpashop.repository.report.SalesReportRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 일별 매출 롤업 - 지난 날짜(어제까지)의 주문을 DailySales로 미리 집계해 둔다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final SalesReportRepository salesReportRepository;
+
+    /*
+     * [from, to) 중 아직 롤업되지 않은 지난 날짜를 집계해서 저장한다.
+     * - 빠진 날짜들을 GROUP BY 쿼리 한 번으로 집계한다. (처음 한 번만 느리고 이후 조회는 롤업만 읽음)
+     * - 리포트 조회(읽기 전용 트랜잭션) 중에 불리므로 별도 트랜잭션으로 커밋한다.
+     * - 롤업 락을 잡은 뒤에 롤업된 날짜를 확인하고 집계한다. 커밋 안 된 취소가 있으면 그 취소가 끝난 뒤에 읽으므로 취소 전 값이 롤업되지 않는다.
+     * */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void closeDays(LocalDate from, LocalDate to) {
+        LocalDate end = to.isAfter(LocalDate.now()) ? LocalDate.now() : to; //오늘은 아직 주문이 들어오므로 롤업하지 않음
+        LocalDateTime firstOrderDate = salesReportRepository.findFirstOrderDate();
+        if (firstOrderDate == null) {
+            return;
+        }
+        LocalDate start = from.isBefore(firstOrderDate.toLocalDate()) ? firstOrderDate.toLocalDate() : from;
+        if (!start.isBefore(end)) {
+            return;
+        }
+
+        salesReportRepository.lockRollup();
+        Set<LocalDate> closed = salesReportRepository.findClosedDays(start, end);
+        List<LocalDate> missing = new ArrayList<>();
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            if (!closed.contains(day)) {
+                missing.add(day);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        LocalDate first = missing.get(0);
+        LocalDate last = missing.get(missing.size() - 1);
+        List<DailySales> rows = salesReportRepository.aggregateDaily(first, last.plusDays(1)).stream()
+                .filter(row -> !closed.contains(row.getSalesDate()))
+                .collect(toList());
+        salesReportRepository.saveRollup(rows, missing);
+        log.info("매출 롤업 {} ~ {} ({}일, {}건)", first, last, missing.size(), rows.size());
+    }
+}
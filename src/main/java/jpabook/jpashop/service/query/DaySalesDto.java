@@ -0,0 +1,19 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.report.SalesAggregate;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class DaySalesDto {
+    private LocalDate date;
+    private long revenue;
+    private long units;
+
+    public DaySalesDto(SalesAggregate aggregate) {
+        date = (LocalDate) aggregate.getKey();
+        revenue = aggregate.getRevenue();
+        units = aggregate.getUnits();
+    }
+}
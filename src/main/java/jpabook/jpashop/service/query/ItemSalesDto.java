@@ -0,0 +1,20 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.report.SalesAggregate;
+import lombok.Data;
+
+@Data
+public class ItemSalesDto {
+    private Long itemId;
+    private String itemName; //상품이 지워졌으면 null
+    private long revenue;
+    private long units;
+
+    public ItemSalesDto(Item item, SalesAggregate aggregate) {
+        itemId = (Long) aggregate.getKey();
+        itemName = item != null ? item.getName() : null;
+        revenue = aggregate.getRevenue();
+        units = aggregate.getUnits();
+    }
+}
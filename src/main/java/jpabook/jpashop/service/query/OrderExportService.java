@@ -0,0 +1,70 @@
+package jpabook.jpashop.service.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderFlatFolder;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 주문 전체 내보내기 (NDJSON: 한 줄에 주문 1건)
+ * - List로 모아서 한 번에 직렬화하면 주문 수만큼 힙이 늘어나므로, 커서로 읽으면서 바로 출력 스트림에 쓴다.
+ * - 플랫 row는 주문 id 순으로 정렬되어 오므로, OrderFlatFolder로 주문 id가 바뀌는 시점에 이전 주문 1건을 완성해서 내보낸다.
+ */
+@Service
+@Transactional(readOnly = true) //커서를 여는 동안 커넥션을 유지해야 하므로 트랜잭션 필요
+@ReadOnlyQuery
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int FETCH_SIZE = 500;       //JDBC 드라이버가 한 번에 가져올 row 수
+    private static final int CLEAR_INTERVAL = 1000;  //이 주문 수마다 영속성 컨텍스트 정리 + 출력 flush
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;  //스프링이 등록한 ObjectMapper를 써야 API 응답과 같은 포맷으로 직렬화된다.
+
+    /*
+     * @return 내보낸 주문 수
+     * */
+    public long exportNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false); //응답 스트림은 서블릿 컨테이너가 닫는다.
+        generator.setRootValueSeparator(null); //기본 구분자(공백) 대신 줄바꿈을 직접 쓴다.
+        ObjectWriter writer = objectMapper.writerFor(OrderQueryDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE); //한 줄마다 소켓으로 flush 하지 않고 CLEAR_INTERVAL 단위로 flush
+
+        long orders = 0;
+        try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllbyDto_flat(FETCH_SIZE)) {
+            Iterator<OrderQueryDto> iterator = OrderFlatFolder.fold(flats.iterator()); //주문 id 순 row를 주문 단위로 접는다.
+            while (iterator.hasNext()) {
+                writeLine(writer, generator, iterator.next());
+
+                if (++orders % CLEAR_INTERVAL == 0) {
+                    em.clear();  //DTO 조회라 관리되는 엔티티는 없지만, 혹시 모를 엔티티가 쌓이지 않도록 주기적으로 비운다.
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+        return orders;
+    }
+
+    private void writeLine(ObjectWriter writer, JsonGenerator generator, OrderQueryDto order) throws IOException {
+        writer.writeValue(generator, order);
+        generator.writeRaw('\n');
+    }
+}
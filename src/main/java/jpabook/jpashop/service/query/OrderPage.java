@@ -0,0 +1,14 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.order.query.OrderListDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderListDto> orders;
+    private String next; //다음 페이지 커서. 마지막 페이지면 null
+}
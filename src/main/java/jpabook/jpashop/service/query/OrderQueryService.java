@@ -2,8 +2,12 @@ package jpabook.jpashop.service.query;
 
 import jpabook.jpashop.api.OrderApiController;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderListCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderListDto;
+import jpabook.jpashop.repository.order.query.OrderListQueryRepository;
+import jpabook.jpashop.support.ReadOnlyQuery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +18,7 @@ import static java.util.stream.Collectors.toList;
 
 @Service
 @Transactional(readOnly = true) //읽기 전용 트랜잭션
+@ReadOnlyQuery
 @RequiredArgsConstructor
 public class OrderQueryService { // 컨트롤러의 변환 로직을 따로 QueryService로 가져와서 모든 작업 처리하는 방식.
 
@@ -22,6 +27,7 @@ public class OrderQueryService { // 컨트롤러의 변환 로직을 따로 Quer
     //OrderQueryService: 화면이나 API에 맞춘 서비스 (주로 읽기 전용 트랜잭션 사용)
 
     private final OrderRepository orderRepository;
+    private final OrderListQueryRepository orderListQueryRepository;
 
     public List<OrderDto> ordersV2OsivOff() { //쿼리가 1번 나감.
         List<Order> orders = orderRepository.findAllByString(new OrderSearch()); //Entity에서 orders 조회 (Entity 타입)
@@ -31,4 +37,16 @@ public class OrderQueryService { // 컨트롤러의 변환 로직을 따로 Quer
 
         return result;
     }
+
+    /* 주문 목록 화면, 주문 검색 API - limit건씩 (키셋 페이징) */
+    public OrderPage findOrderPage(OrderSearch orderSearch, String after, int limit) {
+        OrderListCursor cursor = OrderListCursor.decode(after, orderSearch.getSort());
+        List<OrderListDto> orders = orderListQueryRepository.findOrderList(orderSearch, cursor, limit + 1); //다음 페이지 존재 여부를 알기 위해 1건 더 조회
+
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+        orders = orders.subList(0, limit);
+        return new OrderPage(orders, OrderListCursor.of(orderSearch.getSort(), orders.get(limit - 1)).encode());
+    }
 }
@@ -0,0 +1,97 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.report.SalesAggregate;
+import jpabook.jpashop.repository.report.SalesDimension;
+import jpabook.jpashop.repository.report.SalesReportRepository;
+import jpabook.jpashop.service.SalesRollupService;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * 매출 리포트 - 기간 [from, to)
+ * - 지난 날짜는 롤업(DailySales)에서, 오늘은 주문 테이블에서 GROUP BY 하고 key별로 합친다.
+ * - 매출(상품별, 일별)은 주문 상태가 ORDER인 것만, 상태별 리포트는 모든 상태를 센다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@ReadOnlyQuery
+@RequiredArgsConstructor
+public class SalesReportService {
+
+    private final SalesReportRepository salesReportRepository;
+    private final SalesRollupService salesRollupService;
+    private final ItemRepository itemRepository;
+
+    public List<ItemSalesDto> salesByItem(LocalDate from, LocalDate to, int limit) {
+        List<SalesAggregate> top = sum(SalesDimension.ITEM, from, to, OrderStatus.ORDER).stream()
+                .sorted(Comparator.comparingLong(SalesAggregate::getRevenue).reversed())
+                .limit(limit)
+                .collect(toList());
+
+        Map<Long, Item> items = itemRepository.findAllById(top.stream().map(a -> (Long) a.getKey()).collect(toList())).stream()
+                .collect(toMap(Item::getId, identity()));
+        return top.stream()
+                .map(a -> new ItemSalesDto(items.get((Long) a.getKey()), a))
+                .collect(toList());
+    }
+
+    public List<DaySalesDto> salesByDay(LocalDate from, LocalDate to) {
+        return sum(SalesDimension.DAY, from, to, OrderStatus.ORDER).stream()
+                .sorted(Comparator.comparing(a -> (LocalDate) a.getKey()))
+                .map(DaySalesDto::new)
+                .collect(toList());
+    }
+
+    public List<StatusSalesDto> salesByStatus(LocalDate from, LocalDate to) {
+        return sum(SalesDimension.STATUS, from, to, null).stream()
+                .map(StatusSalesDto::new)
+                .collect(toList());
+    }
+
+    private List<SalesAggregate> sum(SalesDimension dimension, LocalDate from, LocalDate to, OrderStatus status) {
+        LocalDate today = LocalDate.now();
+        Map<Object, SalesAggregate> merged = new LinkedHashMap<>();
+
+        if (from.isBefore(today)) { //지난 날짜 - 롤업
+            LocalDate rollupTo = to.isAfter(today) ? today : to;
+            closeDays(from, rollupTo);
+            salesReportRepository.sumRollup(dimension, from, rollupTo, status)
+                    .forEach(a -> merged.merge(a.getKey(), a, SalesAggregate::plus));
+        }
+        if (to.isAfter(today)) { //오늘 - 주문 테이블
+            LocalDateTime orderFrom = (from.isAfter(today) ? from : today).atStartOfDay();
+            salesReportRepository.sumOrders(dimension, orderFrom, to.atStartOfDay(), status)
+                    .forEach(a -> merged.merge(a.getKey(), a, SalesAggregate::plus));
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private void closeDays(LocalDate from, LocalDate to) {
+        try {
+            salesRollupService.closeDays(from, to);
+        } catch (DataIntegrityViolationException e) {
+            //다른 요청이 같은 날짜를 먼저 롤업함 - 그쪽 결과를 읽으면 된다.
+            log.debug("매출 롤업 중복 {} ~ {}", from, to);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.report.SalesAggregate;
+import lombok.Data;
+
+@Data
+public class StatusSalesDto {
+    private OrderStatus status;
+    private long revenue;
+    private long units;
+
+    public StatusSalesDto(SalesAggregate aggregate) {
+        status = (OrderStatus) aggregate.getKey();
+        revenue = aggregate.getRevenue();
+        units = aggregate.getUnits();
+    }
+}
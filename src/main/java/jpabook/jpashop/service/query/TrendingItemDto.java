@@ -0,0 +1,19 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.Data;
+
+@Data
+public class TrendingItemDto {
+    private Long itemId;
+    private String name;
+    private int price;
+    private long count; //구간 내 판매 수량 (근사값)
+
+    public TrendingItemDto(Item item, long count) {
+        itemId = item.getId();
+        name = item.getName();
+        price = item.getPrice();
+        this.count = count;
+    }
+}
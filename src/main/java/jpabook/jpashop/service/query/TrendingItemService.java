@@ -0,0 +1,41 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.support.ReadOnlyQuery;
+import jpabook.jpashop.trending.TrendingCount;
+import jpabook.jpashop.trending.TrendingItemTracker;
+import jpabook.jpashop.trending.TrendingWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * 인기 상품 - 순위는 메모리(TrendingItemTracker)에서, 상품 이름만 IN 쿼리 한 번으로 붙인다.
+ */
+@Service
+@Transactional(readOnly = true)
+@ReadOnlyQuery
+@RequiredArgsConstructor
+public class TrendingItemService {
+
+    private final TrendingItemTracker trendingItemTracker;
+    private final ItemRepository itemRepository;
+
+    public List<TrendingItemDto> trending(TrendingWindow window, int limit) {
+        List<TrendingCount> top = trendingItemTracker.top(window, limit);
+        Map<Long, Item> items = itemRepository.findAllById(top.stream().map(TrendingCount::getItemId).collect(toList())).stream()
+                .collect(toMap(Item::getId, identity()));
+        return top.stream()
+                .filter(count -> items.containsKey(count.getItemId())) //그 사이 삭제된 상품은 뺀다.
+                .map(count -> new TrendingItemDto(items.get(count.getItemId()), count.getCount()))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 조회 전용 영속성 컨텍스트 모드 (ReadOnlyQueryAspect)
+ * - 이 메서드(클래스면 모든 메서드)에서 조회한 엔티티는 읽기 전용으로 올라간다. (스냅샷 없음, dirty checking 안 함)
+ * - 실행하는 동안 FlushMode.MANUAL이라 쿼리 전 자동 flush도 하지 않는다.
+ * - 읽기/쓰기 트랜잭션 안에서 불리면 아무것도 하지 않는다. (호출한 쪽이 수정할 엔티티까지 읽기 전용이 되지 않게)
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyQuery {
+}
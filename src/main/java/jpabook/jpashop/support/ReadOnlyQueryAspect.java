@@ -0,0 +1,55 @@
+package jpabook.jpashop.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * @ReadOnlyQuery 처리
+ * - readOnly 트랜잭션은 스프링(HibernateJpaDialect)이 이미 세션을 읽기 전용으로 바꿔주지만,
+ *   OSIV로 열린 영속성 컨텍스트에서 트랜잭션 없이 조회하는 경우(컨트롤러 -> 리포지토리)에는 일반 모드로 엔티티를 올린다.
+ *   이 경우도 같은 모드로 맞춘다. 엔티티마다 로딩 시점 값(스냅샷)을 복사해두지 않으므로 큰 조회에서 힙이 절반 가까이 준다.
+ * - 세션의 기본값을 바꾸는 방식이라 호출 안의 모든 쿼리에 org.hibernate.readOnly 힌트를 준 것과 같다.
+ * - 끝나면 세션 설정을 원래대로 되돌린다. (이미 읽기 전용으로 올라온 엔티티는 그대로)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ReadOnlyQueryAspect {
+
+    private final EntityManagerFactory emf;
+
+    @Around("@within(jpabook.jpashop.support.ReadOnlyQuery) || @annotation(jpabook.jpashop.support.ReadOnlyQuery)")
+    public Object readOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed(); //쓰기 트랜잭션 - 호출한 쪽이 조회한 엔티티를 수정할 수 있다.
+        }
+
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em == null) {
+            return joinPoint.proceed(); //OSIV도 트랜잭션도 없음 - 쿼리마다 영속성 컨텍스트가 따로 열렸다 닫힌다.
+        }
+
+        Session session = em.unwrap(Session.class);
+        boolean previousReadOnly = session.isDefaultReadOnly();
+        FlushMode previousFlushMode = session.getHibernateFlushMode();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            session.setDefaultReadOnly(previousReadOnly);
+            session.setHibernateFlushMode(previousFlushMode);
+        }
+    }
+}
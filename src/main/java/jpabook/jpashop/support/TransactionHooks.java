@@ -0,0 +1,42 @@
+package jpabook.jpashop.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 트랜잭션이 끝난 뒤에 실행할 작업 등록
+ * - 트랜잭션 밖에서 호출하면 바로 실행한다.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /* 커밋된 경우에만 실행 */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /* 커밋이든 롤백이든 트랜잭션이 끝나면 실행 */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.trending;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch - 고정 크기 카운터 배열로 key별 빈도를 근사한다.
+ * - depth개의 해시 함수가 각 행에서 칸 하나씩 골라 더하고, 조회는 그 칸들 중 최솟값 (실제 값보다 작게 나오지 않음)
+ * - 칸은 AtomicLongArray라서 락 없이 여러 스레드가 동시에 더할 수 있다.
+ */
+final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L,
+    };
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth는 1 ~ " + SEEDS.length + " 사이여야 합니다.");
+        }
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width는 2의 거듭제곱이어야 합니다.");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    void add(long key, long delta) {
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(row, key), delta);
+        }
+    }
+
+    long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, key)));
+        }
+        return Math.max(min, 0); //취소가 주문보다 먼저 반영되는 순간에는 음수가 될 수 있음
+    }
+
+    /* other의 값을 뺀다. (윈도우에서 빠지는 버킷) 같은 크기여야 한다. */
+    void subtract(CountMinSketch other) {
+        for (int i = 0; i < counters.length(); i++) {
+            long value = other.counters.get(i);
+            if (value != 0) {
+                counters.addAndGet(i, -value);
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(int row, long key) {
+        return row * (mask + 1) + (int) (mix(key ^ SEEDS[row]) & mask);
+    }
+
+    /* SplitMix64 마무리 단계 - 연속된 id도 칸에 고르게 퍼지게 */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.trending;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 버킷으로 나눈 슬라이딩 윈도우 - 버킷마다 CountMinSketch 하나, 윈도우 전체 합계용 sketch 하나
+ * - 더할 때: 이벤트 시각의 버킷과 합계에 더한다. (O(depth))
+ * - 조회할 때: 합계 sketch만 본다. (O(depth))
+ * - 버킷 시간이 지나면 가장 오래된 버킷을 합계에서 빼고 비워서 새 버킷으로 쓴다. (버킷 주기마다 한 번만 락)
+ * - 윈도우 = 지난 bucketCount개 버킷 + 지금 채우는 버킷이므로 최대 버킷 하나만큼 더 길게 센다.
+ */
+final class SlidingWindowSketch {
+
+    private final long bucketMillis;
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch total;
+    private final AtomicLong currentEpoch; //지금 채우는 버킷 번호 (시각 / bucketMillis)
+
+    SlidingWindowSketch(long bucketMillis, int bucketCount, int depth, int width, long now) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new CountMinSketch[bucketCount + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+        this.total = new CountMinSketch(depth, width);
+        this.currentEpoch = new AtomicLong(now / bucketMillis);
+    }
+
+    /* eventTime에 일어난 일을 delta만큼 반영 - 이미 윈도우를 벗어난 이벤트(오래된 주문 취소)는 무시 */
+    void add(long key, long delta, long eventTime, long now) {
+        advance(now);
+        long current = currentEpoch.get();
+        long eventEpoch = Math.min(eventTime / bucketMillis, current);
+        if (current - eventEpoch >= buckets.length) {
+            return;
+        }
+        buckets[(int) (eventEpoch % buckets.length)].add(key, delta);
+        total.add(key, delta);
+    }
+
+    long estimate(long key, long now) {
+        advance(now);
+        return total.estimate(key);
+    }
+
+    private void advance(long now) {
+        long epoch = now / bucketMillis;
+        if (epoch <= currentEpoch.get()) {
+            return;
+        }
+        synchronized (this) {
+            long current = currentEpoch.get();
+            long steps = Math.min(epoch - current, buckets.length);
+            for (long i = 1; i <= steps; i++) {
+                CountMinSketch expiring = buckets[(int) ((current + i) % buckets.length)];
+                total.subtract(expiring);
+                expiring.clear();
+            }
+            currentEpoch.set(Math.max(epoch, current));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package jpabook.jpashop.trending;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TrendingCount {
+    private Long itemId;
+    private long count; //근사값 (실제 판매 수량 이상)
+}
@@ -0,0 +1,146 @@
+package jpabook.jpashop.trending;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * 실시간 인기 상품 (최근 5분 / 1시간 / 24시간 판매 수량)
+ * - 매번 order_item을 GROUP BY 하지 않고, 주문/취소가 커밋될 때 메모리의 sketch에 수량을 더하고 뺀다.
+ * - 구간별로 SlidingWindowSketch 하나 + 상위 후보 상품 id 집합. 메모리는 상품 수와 상관없이 고정이다.
+ * - 주문 한 건 반영은 구간별 depth개 카운터를 원자적으로 더하는 것뿐이라 주문 처리 시간에 거의 영향이 없다.
+ * - 애플리케이션 인스턴스별 집계이고, 재시작하면 비어있는 상태로 다시 시작한다.
+ *   시작 전에 들어온 주문의 취소는 더한 적이 없으므로 빼지 않는다. (빼면 칸이 음수가 되어 같은 칸을 쓰는 다른 상품까지 작게 보임)
+ */
+@Component
+public class TrendingItemTracker {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1024;       //구간당 (버킷 수 + 1) * 4 * 1024 * 8byte
+    private static final int CANDIDATES = 256;   //구간별로 추적하는 상위 후보 상품 수
+
+    private final LongSupplier clock;
+    private final long startedAt;
+    private final Map<TrendingWindow, Window> windows = new EnumMap<>(TrendingWindow.class);
+
+    public TrendingItemTracker() {
+        this(System::currentTimeMillis);
+    }
+
+    TrendingItemTracker(LongSupplier clock) {
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.startedAt = now;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new Window(new SlidingWindowSketch(window.getBucketMillis(), window.getBucketCount(), DEPTH, WIDTH, now)));
+        }
+    }
+
+    /* 주문 - 지금 팔린 수량 */
+    public void recordOrder(Long itemId, int count) {
+        long now = clock.getAsLong();
+        for (Window window : windows.values()) {
+            window.add(itemId, count, now, now);
+        }
+    }
+
+    /* 취소 - 주문 시각이 들어있는 버킷에서 뺀다. (구간을 벗어난 주문이면 그 구간은 그대로) */
+    public void recordCancel(Long itemId, int count, LocalDateTime orderDate) {
+        long now = clock.getAsLong();
+        long orderedAt = orderDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (orderedAt < startedAt) { //이 tracker가 세지 않은 주문
+            return;
+        }
+        for (Window window : windows.values()) {
+            window.add(itemId, -count, orderedAt, now);
+        }
+    }
+
+    /* 구간의 판매 수량 상위 limit개 (많이 팔린 순) */
+    public List<TrendingCount> top(TrendingWindow window, int limit) {
+        return windows.get(window).top(limit, clock.getAsLong());
+    }
+
+    /**
+     * 구간 하나 - sketch + 상위 후보
+     * - sketch는 "얼마나 팔렸나"만 알 수 있으므로 어떤 상품이 상위인지는 후보 집합으로 따로 기억한다.
+     * - 후보가 CANDIDATES의 2배를 넘으면 추정치 기준 min-heap으로 상위 CANDIDATES개만 남기고,
+     *   남은 것 중 가장 작은 추정치를 새 후보 진입 기준으로 삼는다.
+     */
+    private static class Window {
+        private final SlidingWindowSketch sketch;
+        private final Map<Long, Boolean> candidates = new ConcurrentHashMap<>();
+        private final ReentrantLock pruneLock = new ReentrantLock();
+        private volatile long admissionThreshold; //후보에 들어오려면 넘어야 하는 추정치
+
+        Window(SlidingWindowSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        void add(Long itemId, int delta, long eventTime, long now) {
+            sketch.add(itemId, delta, eventTime, now);
+            if (delta <= 0 || candidates.containsKey(itemId)) {
+                return;
+            }
+            if (candidates.size() < CANDIDATES || sketch.estimate(itemId, now) > admissionThreshold) {
+                candidates.put(itemId, Boolean.TRUE);
+                if (candidates.size() > CANDIDATES * 2 && pruneLock.tryLock()) { //다른 스레드가 정리 중이면 기다리지 않음
+                    try {
+                        prune(now);
+                    } finally {
+                        pruneLock.unlock();
+                    }
+                }
+            }
+        }
+
+        List<TrendingCount> top(int limit, long now) {
+            if (pruneLock.tryLock()) { //구간에서 빠진 후보를 정리해서 진입 기준이 옛날 값에 묶여있지 않게 한다.
+                try {
+                    prune(now);
+                } finally {
+                    pruneLock.unlock();
+                }
+            }
+            List<TrendingCount> heap = heapOf(limit, now);
+            heap.sort(Comparator.comparingLong(TrendingCount::getCount).reversed());
+            return heap;
+        }
+
+        private void prune(long now) {
+            List<TrendingCount> kept = heapOf(CANDIDATES, now);
+            candidates.keySet().retainAll(kept.stream().map(TrendingCount::getItemId).collect(toSet()));
+            admissionThreshold = kept.stream().mapToLong(TrendingCount::getCount).min().orElse(0);
+        }
+
+        /* 후보들의 추정치 중 상위 size개 (size 크기의 min-heap) */
+        private List<TrendingCount> heapOf(int size, long now) {
+            PriorityQueue<TrendingCount> heap = new PriorityQueue<>(Comparator.comparingLong(TrendingCount::getCount));
+            for (Long itemId : candidates.keySet()) {
+                long count = sketch.estimate(itemId, now);
+                if (count <= 0) {
+                    continue;
+                }
+                if (heap.size() < size) {
+                    heap.offer(new TrendingCount(itemId, count));
+                } else if (count > heap.peek().getCount()) {
+                    heap.poll();
+                    heap.offer(new TrendingCount(itemId, count));
+                }
+            }
+            return new ArrayList<>(heap);
+        }
+    }
+}
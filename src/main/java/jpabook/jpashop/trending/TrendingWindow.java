@@ -0,0 +1,46 @@
+package jpabook.jpashop.trending;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인기 상품 집계 구간 - 구간이 길수록 버킷도 크게 잡아서 버킷 수(메모리)를 일정하게 유지한다.
+ */
+public enum TrendingWindow {
+    FIVE_MINUTES("5m", TimeUnit.MINUTES.toMillis(1), 5),
+    ONE_HOUR("1h", TimeUnit.MINUTES.toMillis(5), 12),
+    ONE_DAY("24h", TimeUnit.HOURS.toMillis(1), 24);
+
+    private final String code;
+    private final long bucketMillis;
+    private final int bucketCount;
+
+    TrendingWindow(String code, long bucketMillis, int bucketCount) {
+        this.code = code;
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getMillis() {
+        return bucketMillis * bucketCount;
+    }
+
+    public static TrendingWindow of(String code) {
+        return Arrays.stream(values())
+                .filter(window -> window.code.equals(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("지원하지 않는 구간입니다. (5m, 1h, 24h) window=" + code));
+    }
+}
@@ -0,0 +1,3 @@
+-- ddl-auto: create 로 스키마를 만든 뒤 Hibernate가 실행한다.
+-- 매출 롤업 락 row (SalesRollupLock)
+insert into sales_rollup_lock (id) values (1);
@@ -0,0 +1,84 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class OrderTotalBackfillTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    @Test
+    void 합계가_비어있는_주문을_주문상품으로_다시_계산한다() throws Exception {
+        //given - 컬럼 추가 전에 들어간 주문
+        Member member = createMember();
+        Book book = createBook(10000);
+        Long orderId = orderService.order(member.getId(), book.getId(), 3);
+        em.flush();
+        jdbcTemplate.update("update orders set total_price = 0, item_count = 0 where order_id = ?", orderId);
+        em.clear();
+
+        //when
+        long updated = new OrderTotalBackfill(jdbcTemplate, 2).backfill();
+
+        //then
+        assertThat(updated).isGreaterThanOrEqualTo(1);
+        Order order = em.find(Order.class, orderId);
+        assertThat(order.getTotalPrice()).isEqualTo(30000);
+        assertThat(order.getItemCount()).isEqualTo(3);
+    }
+
+    @Test
+    void 목록_조회는_주문상품을_읽지_않고_합계를_가져온다() throws Exception {
+        //given
+        Member member = createMember();
+        Book book = createBook(12000);
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        em.flush();
+        em.clear();
+
+        //when
+        OrderSimpleQueryDto dto = orderSimpleQueryRepository.findOrderDtos().stream()
+                .filter(o -> o.getOrderId().equals(orderId))
+                .findFirst().orElseThrow(IllegalStateException::new);
+
+        //then
+        assertThat(dto.getTotalPrice()).isEqualTo(24000);
+        assertThat(dto.getItemCount()).isEqualTo(2);
+    }
+
+    private Book createBook(int price) {
+        Book book = new Book();
+        book.setName("합계 JPA");
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("합계회원");
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,181 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.QueryCountHeaderAdvice;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static jpabook.jpashop.monitoring.QueryCountAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * 주문 조회 API 버전별 쿼리 수 - OrderDto, OrderItemDto 등을 고치다가 N+1로 돌아가면 실패한다.
+ * */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderApiQueryCountTest {
+
+    private static final int ORDERS = 5;
+
+    @Autowired OrderApiController orderApiController;
+    @Autowired OrderService orderService;
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Book jpa = createBook("쿼리수 JPA");
+        Book spring = createBook("쿼리수 Spring");
+
+        List<OrderBatchCommand> commands = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Member member = createMember("쿼리수회원" + i);
+            commands.add(new OrderBatchCommand(member.getId(), Arrays.asList(
+                    new OrderBatchCommand.Line(jpa.getId(), 1),
+                    new OrderBatchCommand.Line(spring.getId(), 2))));
+        }
+        orderService.orderBatch(commands);
+
+        em.flush();
+        em.clear(); //영속성 컨텍스트를 비워야 조회 쿼리가 실제로 나간다.
+    }
+
+    @Test
+    void V3_fetch_join은_쿼리_1번() throws Exception {
+        List<OrderApiController.OrderDto> result = assertQueryCount(1, () -> orderApiController.ordersV3());
+
+        assertThat(result).hasSizeGreaterThanOrEqualTo(ORDERS);
+    }
+
+    @Test
+    void V3_1_batch_fetch는_주문수와_상관없이_쿼리_3번() throws Exception {
+        //주문 + orderItems IN + item IN
+        List<OrderApiController.OrderDto> result = assertQueryCount(3, () -> orderApiController.ordersV3_page(0, 10));
+
+        assertThat(result).hasSizeGreaterThanOrEqualTo(ORDERS);
+    }
+
+    @Test
+    void V5_컬렉션_IN_조회는_쿼리_2번() throws Exception {
+        List<OrderQueryDto> result = assertQueryCount(2, () -> orderApiController.ordersV5());
+
+        //setUp에서 만든(아직 커밋하지 않은) 주문에도 주문상품이 채워져야 한다.
+        List<OrderQueryDto> created = result.stream()
+                .filter(o -> o.getName().startsWith("쿼리수회원"))
+                .collect(toList());
+        assertThat(created).hasSize(ORDERS);
+        assertThat(created).allSatisfy(o -> assertThat(o.getOrderItems())
+                .extracting(OrderItemQueryDto::getItemName, OrderItemQueryDto::getCount)
+                .containsExactlyInAnyOrder(tuple("쿼리수 JPA", 1), tuple("쿼리수 Spring", 2)));
+    }
+
+    @Test
+    void V3_2_커서를_따라가면_모든_주문을_중복_없이_조회한다() throws Exception {
+        //given
+        int total = orderApiController.ordersV3().size();
+
+        //when - 2건씩 끝까지
+        List<Long> orderIds = new ArrayList<>();
+        String after = null;
+        do {
+            CursorResult<OrderApiController.OrderDto> page = orderApiController.ordersV3_cursor(after, 2);
+            assertThat(page.getCount()).isBetween(1, 2);
+            page.getData().forEach(order -> orderIds.add(order.getOrderId()));
+            after = page.getNext();
+        } while (after != null);
+
+        //then
+        assertThat(orderIds).hasSize(total).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void V3_2_범위를_벗어난_limit은_1에서_100_사이로_맞춘다() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1));
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "-5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1));
+
+        assertThat(orderApiController.ordersV3_cursor(null, 100_000).getCount()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void V3_2_잘못된_커서는_400으로_거부한다() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("잘못된 커서입니다: not-a-cursor"));
+    }
+
+    @Test
+    void 주문_검색_잘못된_커서는_400으로_거부한다() throws Exception {
+        mockMvc.perform(get("/api/orders/search").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("잘못된 커서입니다: not-a-cursor"));
+    }
+
+    @Test
+    void 주문_검색_정렬을_바꾼_채로_넘긴_커서는_400으로_거부한다() throws Exception {
+        //given - 주문금액순 첫 페이지의 커서
+        OrderSearch byTotalPrice = new OrderSearch();
+        byTotalPrice.setSort(OrderSearch.OrderSort.TOTAL_PRICE);
+        String next = orderApiController.searchOrders(byTotalPrice, null, 1).getNext();
+        assertThat(next).isNotNull();
+
+        //when then - 최신순으로 바꿔서 같은 커서를 넘기면 거부
+        mockMvc.perform(get("/api/orders/search").param("sort", "LATEST").param("after", next))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("잘못된 커서입니다: " + next));
+        mockMvc.perform(get("/api/orders/search").param("sort", "TOTAL_PRICE").param("after", next))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void 응답_헤더에_쿼리_수가_들어간다() throws Exception {
+        mockMvc.perform(get("/api/v3/orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountHeaderAdvice.QUERY_COUNT_HEADER, "1"))
+                .andExpect(header().string(QueryCountHeaderAdvice.MAX_REPEAT_HEADER, "1"));
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+}
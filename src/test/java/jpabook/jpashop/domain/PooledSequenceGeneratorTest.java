@@ -0,0 +1,73 @@
+package jpabook.jpashop.domain;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties." + PooledSequenceGenerator.INCREMENT_SIZE_SETTING + "=" + PooledSequenceGeneratorTest.INCREMENT_SIZE)
+@Transactional
+class PooledSequenceGeneratorTest {
+
+    static final int INCREMENT_SIZE = 20; //테스트 application.yml이 main 설정을 가리므로 여기서 직접 준다.
+
+    @Autowired EntityManager em;
+
+    @Test
+    void 할당된_범위_안에서는_연속된_id를_메모리에서_꺼내쓴다() throws Exception {
+        //given
+        Member first = newMember("pooled-0");
+        em.persist(first);
+
+        //when
+        Member second = newMember("pooled-1");
+        Member third = newMember("pooled-2");
+        em.persist(second);
+        em.persist(third);
+
+        //then
+        assertEquals(first.getId() + 1, second.getId());
+        assertEquals(first.getId() + 2, third.getId());
+    }
+
+    @Test
+    void 다른_인스턴스가_시퀀스를_가져가도_id가_겹치지_않는다() throws Exception {
+        //given
+        em.persist(newMember("instance-a-0")); //이 인스턴스가 범위를 하나 할당받음
+
+        //다른 애플리케이션 인스턴스가 같은 시퀀스에서 범위를 가져간 상황 (pooled: 시퀀스 값 = 그 범위의 끝)
+        long otherHi = nextValue("member_seq");
+        long otherLo = otherHi - INCREMENT_SIZE + 1;
+
+        //when - 이 인스턴스가 현재 범위를 다 쓰고 새 범위를 받을 만큼 저장
+        Set<Long> ids = new HashSet<>();
+        for (int i = 1; i <= INCREMENT_SIZE * 2; i++) {
+            Member member = newMember("instance-a-" + i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+
+        //then
+        assertEquals(INCREMENT_SIZE * 2, ids.size());
+        for (Long id : ids) {
+            assertFalse(id >= otherLo && id <= otherHi, "다른 인스턴스의 범위와 겹침: " + id);
+        }
+    }
+
+    private Member newMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
+    private long nextValue(String sequenceName) {
+        return ((Number) em.createNativeQuery("select next value for " + sequenceName).getSingleResult()).longValue();
+    }
+
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class NamePrefixIndexTest {
+
+    private final NamePrefixIndex index = new NamePrefixIndex();
+
+    @Test
+    void 앞부분이_같은_이름을_대소문자_무시하고_이름순으로_찾는다() throws Exception {
+        //given
+        index.add(3L, "Spring Boot");
+        index.add(1L, "spring data");
+        index.add(2L, "JPA");
+        index.add(4L, "Spring Boot"); //같은 이름의 다른 상품
+
+        //when
+        //then
+        assertThat(index.search("SPRING", 10))
+                .extracting(NameMatch::getId, NameMatch::getName)
+                .containsExactly(tuple(3L, "Spring Boot"), tuple(4L, "Spring Boot"), tuple(1L, "spring data"));
+        assertThat(index.search("spring", 2)).extracting(NameMatch::getId).containsExactly(3L, 4L);
+        assertThat(index.search("한글", 10)).isEmpty();
+    }
+
+    @Test
+    void 이름을_바꾸면_옛_이름으로는_찾을_수_없다() throws Exception {
+        //given
+        index.add(1L, "회원A");
+
+        //when
+        index.rename(1L, "회원A", "고객A");
+
+        //then
+        assertThat(index.search("회원", 10)).isEmpty();
+        assertThat(index.search("고객", 10)).extracting(NameMatch::getId).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
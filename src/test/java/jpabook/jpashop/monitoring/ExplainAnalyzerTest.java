@@ -0,0 +1,81 @@
+package jpabook.jpashop.monitoring;
+
+import jpabook.jpashop.domain.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * EXPLAIN 분석기 - threshold를 0으로 두고, 인덱스가 없는 조건은 풀스캔으로 잡히고 인덱스가 있는 조건은 안 잡히는지 본다.
+ * 회원 데이터는 InitDb가 넣어둔 것을 쓴다.
+ * */
+@SpringBootTest(properties = {"jpashop.explain.enabled=true", "jpashop.explain.scan-threshold=0"})
+@Transactional
+class ExplainAnalyzerTest {
+
+    @Autowired ExplainAnalyzer explainAnalyzer;
+    @Autowired ExplainCaptureListener explainCaptureListener;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        explainCaptureListener.clear();
+    }
+
+    @Test
+    void 인덱스_없는_조건은_풀스캔으로_잡힌다() throws Exception {
+        //given
+        em.createQuery("select m from Member m where m.address.city = :city", Member.class)
+                .setParameter("city", "서울")
+                .getResultList();
+
+        //when
+        ExplainReport report = explainAnalyzer.analyze();
+
+        //then
+        assertThat(report.getAnalyzed()).isEqualTo(1);
+        assertThat(report.getFailures()).isEmpty();
+        assertThat(report.getFindings()).extracting(ExplainReport.Finding::getTable)
+                .anyMatch(table -> table.endsWith("MEMBER"));
+    }
+
+    @Test
+    void 인덱스를_타는_조건은_풀스캔이_아니다() throws Exception {
+        //given - uk_member_name (유니크 인덱스)
+        em.createQuery("select m from Member m where m.name = :name", Member.class)
+                .setParameter("name", "userA")
+                .getResultList();
+
+        //when
+        ExplainReport report = explainAnalyzer.analyze();
+
+        //then
+        assertThat(report.getAnalyzed()).isEqualTo(1);
+        assertThat(report.getFailures()).isEmpty();
+        assertThat(report.getFindings()).isEmpty();
+    }
+
+    @Test
+    void 실행계획_주석에서_풀스캔_테이블과_읽은_row_수를_꺼낸다() throws Exception {
+        //given
+        String plan = "SELECT O.ORDER_ID FROM PUBLIC.ORDERS O\n" +
+                "    /* PUBLIC.ORDERS.tableScan */\n" +
+                "    /* scanCount: 10001 */\n" +
+                "INNER JOIN PUBLIC.MEMBER M\n" +
+                "    /* PUBLIC.PRIMARY_KEY_8: MEMBER_ID = O.MEMBER_ID */\n" +
+                "    /* scanCount: 20000 */";
+
+        //when
+        List<ExplainPlan.TableScan> scans = ExplainPlan.tableScans(plan);
+
+        //then
+        assertThat(scans).containsExactly(new ExplainPlan.TableScan("PUBLIC.ORDERS", 10001));
+    }
+}
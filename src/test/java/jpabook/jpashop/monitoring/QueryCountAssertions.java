@@ -0,0 +1,48 @@
+package jpabook.jpashop.monitoring;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 테스트에서 SQL 실행 수 검증
+ * <pre>
+ * List&lt;OrderDto&gt; result = assertQueryCount(1, () -&gt; orderApiController.ordersV3());
+ * </pre>
+ * - 실행 전에 em.flush(), em.clear()로 영속성 컨텍스트를 비워야 실제 조회 쿼리 수가 나온다.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /* action 실행 중 SQL이 max번 넘게 나가면 실패 */
+    public static <T> T assertQueryCount(long max, ThrowingSupplier<T> action) {
+        Measured<T> measured = measure(action);
+        if (measured.count.getTotal() > max) {
+            fail("SQL은 최대 " + max + "번이어야 하는데 " + measured.count.getTotal() + "번 실행됨 (N+1 확인)\n" + measured.count);
+        }
+        return measured.result;
+    }
+
+    private static <T> Measured<T> measure(ThrowingSupplier<T> action) {
+        QueryCounter.start();
+        try {
+            T result = action.get();
+            return new Measured<>(result, QueryCounter.stop());
+        } catch (Throwable t) {
+            QueryCounter.stop();
+            throw new AssertionError("실행 중 예외 발생", t);
+        }
+    }
+
+    private static class Measured<T> {
+        private final T result;
+        private final QueryCount count;
+
+        private Measured(T result, QueryCount count) {
+            this.result = result;
+            this.count = count;
+        }
+    }
+}
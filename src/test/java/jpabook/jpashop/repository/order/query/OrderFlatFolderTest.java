@@ -0,0 +1,87 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 스프링/DB 없이 변환 로직만 검증하는 단위 테스트.
+ * groupingBy 방식과의 속도/할당량 비교는 src/jmh의 OrderFlatFolderBenchmark
+ * */
+class OrderFlatFolderTest {
+
+    @Test
+    void 인접한_같은_주문의_row를_하나로_접는다() throws Exception {
+        //given
+        List<OrderFlatDto> flats = createFlats(3, 2);
+
+        //when
+        List<OrderQueryDto> result = OrderFlatFolder.fold(flats);
+
+        //then
+        assertThat(result).extracting(OrderQueryDto::getOrderId).containsExactly(1L, 2L, 3L); //입력 순서(주문 id 순) 유지
+        assertThat(result).allSatisfy(o -> assertThat(o.getOrderItems()).hasSize(2));
+        assertThat(result.get(0).getOrderItems().get(1).getItemName()).isEqualTo("item1-2");
+    }
+
+    @Test
+    void 빈_결과는_빈_리스트() throws Exception {
+        assertThat(OrderFlatFolder.fold(new ArrayList<>())).isEmpty();
+    }
+
+    @Test
+    void groupingBy_방식과_결과가_같다() throws Exception {
+        //given
+        List<OrderFlatDto> flats = createFlats(100, 3);
+
+        //when
+        List<OrderQueryDto> folded = OrderFlatFolder.fold(flats);
+        List<OrderQueryDto> grouped = new ArrayList<>(groupByOrder(flats));
+        grouped.sort(Comparator.comparing(OrderQueryDto::getOrderId)); //groupingBy는 순서가 보장되지 않으므로 정렬해서 비교
+
+        //then
+        assertThat(folded).hasSameSizeAs(grouped);
+        for (int i = 0; i < folded.size(); i++) {
+            assertThat(folded.get(i).getOrderId()).isEqualTo(grouped.get(i).getOrderId());
+            assertThat(folded.get(i).getOrderItems()).isEqualTo(grouped.get(i).getOrderItems());
+        }
+    }
+
+    /* 기존 V6 방식(groupingBy) - 결과 비교 기준. 결과 순서는 보장되지 않는다. */
+    private static List<OrderQueryDto> groupByOrder(List<OrderFlatDto> flats) {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),
+                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
+                                o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
+                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
+                        e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+
+    /* 주문 id 순으로 정렬된 플랫 row 생성 */
+    private List<OrderFlatDto> createFlats(int orderCount, int itemsPerOrder) {
+        Address address = new Address("서울", "테헤란로", "123-456");
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderFlatDto> flats = new ArrayList<>(orderCount * itemsPerOrder);
+        for (long orderId = 1; orderId <= orderCount; orderId++) {
+            for (int i = 1; i <= itemsPerOrder; i++) {
+                flats.add(new OrderFlatDto(orderId, "회원" + orderId, now, OrderStatus.ORDER, address,
+                        "item" + orderId + "-" + i, 10000 * i, i));
+            }
+        }
+        return flats;
+    }
+}
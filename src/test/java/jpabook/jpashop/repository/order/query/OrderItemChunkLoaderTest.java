@@ -0,0 +1,105 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.QueryCount;
+import jpabook.jpashop.monitoring.QueryCounter;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderBatchResult;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/*
+ * v5 orderItem 청크 조회 - 청크 크기를 1로 줄여서 주문마다 청크가 나뉘게 한다.
+ * */
+@SpringBootTest(properties = "jpashop.order-query.in-chunk-size=1")
+class OrderItemChunkLoaderTest {
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+
+    @Test
+    @Transactional
+    void 트랜잭션_안에서는_커밋하지_않은_주문의_상품도_채운다() throws Exception {
+        //given - 아직 커밋하지 않은 주문 2건
+        Member member = createMember("청크회원");
+        Book jpa = createBook("청크 JPA");
+        Book spring = createBook("청크 Spring");
+        List<Long> orderIds = orderService.orderBatch(Arrays.asList(
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 1),
+                        new OrderBatchCommand.Line(spring.getId(), 2))),
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(spring.getId(), 3)))))
+                .stream()
+                .map(OrderBatchResult::getOrderId)
+                .collect(toList());
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderQueryDto> result = orderQueryRepository.findAllbyDto_optimization().stream()
+                .filter(o -> orderIds.contains(o.getOrderId()))
+                .collect(toList());
+
+        //then
+        assertThat(result).extracting(OrderQueryDto::getOrderId).containsExactlyInAnyOrderElementsOf(orderIds);
+        OrderQueryDto first = result.stream().filter(o -> o.getOrderId().equals(orderIds.get(0))).findFirst().get();
+        OrderQueryDto second = result.stream().filter(o -> o.getOrderId().equals(orderIds.get(1))).findFirst().get();
+        assertThat(first.getOrderItems()).extracting(OrderItemQueryDto::getItemName)
+                .containsExactlyInAnyOrder("청크 JPA", "청크 Spring");
+        assertThat(second.getOrderItems()).extracting(OrderItemQueryDto::getItemName, OrderItemQueryDto::getCount)
+                .containsExactly(tuple("청크 Spring", 3));
+    }
+
+    @Test
+    void 병렬로_조회한_청크의_SQL도_호출한_쪽에서_센다() throws Exception {
+        //given - InitDb가 커밋해둔 주문 (트랜잭션 밖이라 청크마다 워커 스레드로 나뉜다)
+        int orders = orderQueryRepository.findAllbyDto_optimization().size();
+
+        //when
+        List<OrderQueryDto> result;
+        QueryCount count;
+        QueryCounter.start();
+        try {
+            result = orderQueryRepository.findAllbyDto_optimization();
+        } finally {
+            count = QueryCounter.stop();
+        }
+
+        //then - 주문 조회 1번 + 청크(주문)마다 1번
+        assertThat(orders).isGreaterThan(1);
+        assertThat(count.getTotal()).isEqualTo(1 + orders);
+        assertThat(result).allSatisfy(o -> assertThat(o.getOrderItems()).isNotEmpty());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static jpabook.jpashop.monitoring.QueryCountAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryTreeCache categoryTreeCache;
+    @Autowired EntityManager em;
+
+    @AfterEach
+    void tearDown() {
+        categoryTreeCache.invalidate(); //롤백된 카테고리로 만든 스냅샷을 남기지 않는다.
+    }
+
+    @Test
+    void 하위_카테고리의_상품까지_쿼리_한번에_조회한다() throws Exception {
+        //given - 도서 > IT > 자바, 도서 > 소설
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long java = categoryService.create("자바", it);
+        Long novel = categoryService.create("소설", books);
+
+        Book jpa = createBook("JPA", java);
+        Book network = createBook("네트워크", it);
+        Book both = createBook("자바 소설", java, novel); //두 카테고리에 걸친 상품
+        em.flush();
+        em.clear();
+        categoryTreeCache.invalidate();
+        categoryTreeCache.get();
+
+        //when
+        List<Item> itItems = assertQueryCount(1, () -> categoryService.findItems(it, 0, 100));
+
+        //then
+        assertThat(itItems).extracting(Item::getId).containsExactly(jpa.getId(), network.getId(), both.getId());
+        assertThat(categoryService.findItems(books, 0, 100)).hasSize(3);
+        assertThat(categoryService.findItems(novel, 0, 100)).extracting(Item::getId).containsExactly(both.getId());
+    }
+
+    @Test
+    void 트리_스냅샷은_경로와_하위_카테고리를_가진다() throws Exception {
+        //given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long java = categoryService.create("자바", it);
+        em.flush();
+        categoryTreeCache.invalidate();
+
+        //when
+        CategoryTree tree = categoryService.tree();
+
+        //then
+        assertThat(tree.find(java).getPath()).isEqualTo("도서 > IT > 자바");
+        assertThat(tree.find(books).subtreeIds()).containsExactly(books, it, java);
+        assertThat(categoryService.tree()).isSameAs(tree); //바뀌지 않았으면 다시 만들지 않는다.
+    }
+
+    private Book createBook(String name, Long... categoryIds) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        for (Long categoryId : categoryIds) {
+            em.find(Category.class, categoryId).getItems().add(book); //연관관계의 주인은 Category.items
+        }
+        return book;
+    }
+}
@@ -0,0 +1,96 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 2차 캐시(cache 프로필) - 캐시에 올라간 상품도 재고 변경 후에는 DB 값으로 보여야 한다.
+ * 트랜잭션마다 영속성 컨텍스트가 새로 생겨야 2차 캐시를 타므로 @Transactional을 붙이지 않는다.
+ * */
+@SpringBootTest
+@ActiveProfiles("cache")
+class ItemCacheTest {
+
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    void 두번째_조회부터는_캐시에서_가져온다() throws Exception {
+        //given
+        Book book = transactionTemplate.execute(status -> createBook(10));
+        emf.getCache().evictAll();
+
+        //when
+        itemService.findOne(book.getId()); //DB 조회 후 캐시에 저장
+
+        //then
+        assertThat(emf.getCache().contains(Item.class, book.getId())).isTrue();
+    }
+
+    @Test
+    void 주문하면_캐시된_재고가_갱신된다() throws Exception {
+        //given
+        Member member = transactionTemplate.execute(status -> createMember());
+        Book book = transactionTemplate.execute(status -> createBook(10));
+        itemService.findOne(book.getId()); //캐시에 재고 10으로 올라감
+
+        //when
+        orderService.order(member.getId(), book.getId(), 3);
+
+        //then
+        assertThat(itemService.findOne(book.getId()).getStockQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void 상품_수정이_캐시에_반영된다() throws Exception {
+        //given
+        Book book = transactionTemplate.execute(status -> createBook(10));
+        itemService.findOne(book.getId());
+
+        //when
+        itemService.updateItem(book.getId(), "캐시 JPA 개정판", 12000, 20);
+
+        //then
+        Item findItem = itemService.findOne(book.getId());
+        assertThat(findItem.getName()).isEqualTo("캐시 JPA 개정판");
+        assertThat(findItem.getStockQuantity()).isEqualTo(20);
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("캐시 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("캐시회원");
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+}
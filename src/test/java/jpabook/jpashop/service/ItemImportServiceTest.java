@@ -0,0 +1,143 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 청크마다 트랜잭션을 따로 커밋하므로 테스트에 @Transactional을 붙이지 않는다. (테스트 트랜잭션은 import 중에 보류되어 커밋 전 데이터가 안 보임)
+ * 커밋된 상품은 캐시된 테스트 컨텍스트를 같이 쓰는 다른 테스트에 보이므로 테스트마다 지운다.
+ * */
+@SpringBootTest
+class ItemImportServiceTest {
+
+    @Autowired ItemImportService itemImportService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    private Long lastItemId;
+
+    @BeforeEach
+    void setUp() {
+        lastItemId = transactionTemplate.execute(status ->
+                em.createQuery("select coalesce(max(i.id), 0) from Item i", Long.class).getSingleResult());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("delete from Item i where i.id > :lastItemId")
+                        .setParameter("lastItemId", lastItemId)
+                        .executeUpdate());
+    }
+
+    @Test
+    void CSV로_상품을_등록하고_수정한다() throws Exception {
+        //given
+        Book existing = transactionTemplate.execute(status -> createBook("시골 JPA"));
+
+        String csv = "id,dtype,name,price,stock_quantity,author,isbn,artist,etc,director,actor\n" +
+                existing.getId() + ",B,\"시골 JPA, 개정판\",12000,20,김영한,1234,,,,\n" +
+                ",A,앨범1,15000,5,,,아티스트,\"비고 \"\"특별\"\"\",,\n" +
+                ",movie,영화1,9000,3,,,,,감독,배우\n";
+
+        //when
+        ItemImportResult result = itemImportService.importCsv(new StringReader(csv));
+
+        //then
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Book updated = em.find(Book.class, existing.getId());
+            assertThat(updated.getName()).isEqualTo("시골 JPA, 개정판");
+            assertThat(updated.getPrice()).isEqualTo(12000);
+            assertThat(updated.getStockQuantity()).isEqualTo(20);
+            assertThat(updated.getAuthor()).isEqualTo("김영한");
+
+            Album album = em.createQuery("select a from Album a where a.name = '앨범1'", Album.class).getSingleResult();
+            assertThat(album.getEtc()).isEqualTo("비고 \"특별\"");
+            assertThat(em.createQuery("select m from Movie m where m.name = '영화1'", Movie.class).getSingleResult().getDirector())
+                    .isEqualTo("감독");
+        });
+    }
+
+    @Test
+    void 잘못된_줄은_건너뛰고_사유를_남긴다() throws Exception {
+        //given
+        Book existing = transactionTemplate.execute(status -> createBook("시골 JPA"));
+
+        String csv = "id,dtype,name,price,stockQuantity\n" +
+                ",X,알수없는종류,1000,1\n" +            //2: dtype 오류
+                ",B,음수가격,-1,1\n" +                   //3: 가격 오류
+                "999999999,B,없는상품,1000,1\n" +        //4: 없는 id
+                existing.getId() + ",M,종류변경,1000,1\n" + //5: 종류 변경
+                ",B,\"닫히지 않은 따옴표,1000,1\n" +     //6: 형식 오류
+                ",B,정상,1000,1\n";
+
+        //when
+        ItemImportResult result = itemImportService.importCsv(new StringReader(csv));
+
+        //then
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(5);
+        assertThat(result.getRejections()).extracting(ItemImportResult.Rejection::getLine)
+                .containsExactly(2L, 3L, 4L, 5L, 6L);
+        assertThat(transactionTemplate.execute(status -> em.find(Item.class, existing.getId()).getName())).isEqualTo("시골 JPA");
+    }
+
+    @Test
+    void DB에서_실패한_청크만_롤백되고_앞_청크는_커밋된다() throws Exception {
+        //given - 첫 청크는 정상, 둘째 청크에 컬럼 길이(255)를 넘는 상품명
+        StringBuilder csv = new StringBuilder("id,dtype,name,price,stockQuantity\n");
+        for (int i = 0; i < ItemImportService.CHUNK_SIZE; i++) {
+            csv.append(",B,청크임포트").append(i).append(",1000,1\n");
+        }
+        csv.append(",B,청크임포트정상,1000,1\n");
+        csv.append(",B,").append(repeat("가", 300)).append(",1000,1\n");
+
+        //when
+        ItemImportResult result = itemImportService.importCsv(new StringReader(csv.toString()));
+
+        //then
+        assertThat(result.getInserted()).isEqualTo(ItemImportService.CHUNK_SIZE);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getChunks()).extracting(ItemImportResult.Chunk::isCommitted).containsExactly(true, false);
+        assertThat(result.getChunks().get(1).getFirstLine()).isEqualTo(ItemImportService.CHUNK_SIZE + 2L);
+        assertThat(result.getChunks().get(1).getError()).isNotNull();
+
+        Long committed = transactionTemplate.execute(status ->
+                em.createQuery("select count(i) from Item i where i.name like '청크임포트%'", Long.class).getSingleResult());
+        assertThat(committed).isEqualTo(ItemImportService.CHUNK_SIZE); //둘째 청크의 정상 줄도 같이 롤백
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+
+    private String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemSearch;
+import jpabook.jpashop.repository.item.query.ItemListDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class ItemServiceTest {
+
+    private static final int MIN_PRICE = 777_000; //다른 테스트/InitDb 상품과 섞이지 않는 가격대
+    private static final int MAX_PRICE = 777_999;
+
+    @Autowired ItemService itemService;
+    @Autowired EntityManager em;
+
+    @Test
+    void 상품_목록을_키셋으로_나눠서_조회한다() throws Exception {
+        //given
+        Item c = save(new Book(), "C 도서", MIN_PRICE + 3);
+        Item a = save(new Book(), "A 도서", MIN_PRICE + 1);
+        Item b = save(new Album(), "B 음반", MIN_PRICE + 2);
+        em.flush();
+        em.clear();
+
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setMinPrice(MIN_PRICE);
+        itemSearch.setMaxPrice(MAX_PRICE);
+        itemSearch.setSort(ItemSearch.ItemSort.NAME);
+
+        //when
+        ItemPage first = itemService.findItemPage(itemSearch, null, 2);
+        ItemPage second = itemService.findItemPage(itemSearch, first.getNext(), 2);
+
+        //then
+        assertThat(first.getItems()).extracting(ItemListDto::getId).containsExactly(a.getId(), b.getId());
+        assertThat(first.getItems()).extracting(ItemListDto::getDtype).containsExactly("B", "A");
+        assertThat(second.getItems()).extracting(ItemListDto::getId).containsExactly(c.getId());
+        assertThat(second.getNext()).isNull();
+    }
+
+    @Test
+    void 종류로_거르고_샤딩된_재고는_합쳐서_보여준다() throws Exception {
+        //given
+        Item book = save(new Book(), "샤딩 도서", MIN_PRICE);
+        save(new Album(), "음반", MIN_PRICE);
+        itemService.shardStock(book.getId(), 4);
+        em.flush();
+        em.clear();
+
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setMinPrice(MIN_PRICE);
+        itemSearch.setMaxPrice(MAX_PRICE);
+        itemSearch.setDtype("B");
+
+        //when
+        ItemPage page = itemService.findItemPage(itemSearch, null, 10);
+
+        //then
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getItems().get(0).getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void 정렬이_다른_커서는_거부한다() throws Exception {
+        //given
+        save(new Book(), "A 도서", MIN_PRICE);
+        save(new Book(), "B 도서", MIN_PRICE);
+        ItemSearch byId = new ItemSearch();
+        byId.setMinPrice(MIN_PRICE);
+        String next = itemService.findItemPage(byId, null, 1).getNext();
+
+        ItemSearch byName = new ItemSearch();
+        byName.setSort(ItemSearch.ItemSort.NAME);
+
+        //when
+        //then
+        assertThatThrownBy(() -> itemService.findItemPage(byName, next, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Item save(Item item, String name, int price) {
+        item.setName(name);
+        item.setPrice(price);
+        item.setStockQuantity(10);
+        em.persist(item);
+        return item;
+    }
+}
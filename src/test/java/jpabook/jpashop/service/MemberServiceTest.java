@@ -67,4 +67,24 @@ class MemberServiceTest {
         //        });
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void 이름_필터에_없는_중복_이름도_유니크_제약으로_막는다() throws Exception{
+        //given - 서비스를 거치지 않고 저장해서 이름 필터(MemberNameFilter)에는 없는 회원
+        Member saved = new Member();
+        saved.setName("lee");
+        em.persist(saved);
+        em.flush();
+
+        Member member = new Member();
+        member.setName("lee");
+
+        //when
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+            memberService.join(member); //필터에 없으므로 SELECT 없이 insert -> uk_member_name 위반
+        });
+
+        //then
+        assertEquals("이미 존재하는 회원입니다.", thrown.getMessage());
+    }
+}
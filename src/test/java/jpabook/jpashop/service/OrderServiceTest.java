@@ -1,6 +1,7 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
@@ -16,8 +17,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 
@@ -90,6 +97,104 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void 일괄주문_재고부족인_주문만_실패() throws Exception {
+        //given
+        Member member = createMember();
+        Book jpa = createBook("시골 JPA", 10000, 10);
+        Book spring = createBook("시골 Spring", 20000, 3);
+
+        List<OrderBatchCommand> commands = Arrays.asList(
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 2),
+                        new OrderBatchCommand.Line(spring.getId(), 1))),
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 3),
+                        new OrderBatchCommand.Line(spring.getId(), 5))), //재고 부족
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 1))));
+
+        //when
+        List<OrderBatchResult> results = orderService.orderBatch(commands);
+
+        //then
+        assertTrue(results.get(0).isSuccess());
+        assertFalse("재고가 부족한 주문은 실패해야 한다.", results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+
+        Order first = orderRepository.findOne(results.get(0).getOrderId());
+        assertEquals("주문한 상품 종류 수가 정확해야 한다.", 2, first.getOrderItems().size());
+        assertEquals("주문 가격은 가격 * 수량이다.", 10000 * 2 + 20000, first.getTotalPrice());
+        assertEquals("실패한 주문에서 뺀 재고는 되돌려야 한다.", 7, jpa.getStockQuantity());
+        assertEquals(2, spring.getStockQuantity());
+    }
+
+    @Test
+    public void 일괄주문_합계가_재고를_넘으면_주문_순서대로_가능한_주문까지만_성공() throws Exception {
+        //given - 상품 id 순서와 반대로 요청한 주문 (spring 먼저)
+        Member member = createMember();
+        Book jpa = createBook("시골 JPA", 10000, 5);
+        Book spring = createBook("시골 Spring", 20000, 10);
+
+        List<OrderBatchCommand> commands = Arrays.asList(
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(spring.getId(), 1),
+                        new OrderBatchCommand.Line(jpa.getId(), 2))),
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 2))),
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(spring.getId(), 4),
+                        new OrderBatchCommand.Line(jpa.getId(), 2)))); //jpa 합계 6 > 재고 5
+
+        //when
+        List<OrderBatchResult> results = orderService.orderBatch(commands);
+
+        //then
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse("앞 주문들이 재고를 가져가서 부족한 주문은 실패해야 한다.", results.get(2).isSuccess());
+        assertEquals(1, jpa.getStockQuantity());
+        assertEquals("실패한 주문의 다른 상품 재고는 차감되지 않아야 한다.", 9, spring.getStockQuantity());
+    }
+
+    @Test
+    public void 일괄취소_배송완료된_주문은_제외하고_재고를_한번에_되돌린다() throws Exception {
+        //given
+        Member member = createMember();
+        Book jpa = createBook("시골 JPA", 10000, 10);
+        Book spring = createBook("시골 Spring", 20000, 10);
+
+        Long first = orderService.order(member.getId(), jpa.getId(), 2);
+        Long second = orderService.order(member.getId(), jpa.getId(), 3);
+        Long delivered = orderService.order(member.getId(), spring.getId(), 4);
+        orderRepository.findOne(delivered).getDelivery().setStatus(DeliveryStatus.COMP);
+
+        //when
+        OrderCancelResult result = orderService.cancelOrders(Arrays.asList(first, second, delivered, first));
+
+        //then
+        assertEquals("중복된 id는 한번만 취소한다.", 2, result.getCancelled());
+        assertEquals(1, result.getRejections().size());
+        assertEquals(delivered, result.getRejections().get(0).getOrderId());
+
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(first).getStatus());
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(delivered).getStatus());
+        assertEquals("취소된 주문 수량만큼 재고가 증가해야 한다.", 10, em.find(Item.class, jpa.getId()).getStockQuantity());
+        assertEquals("배송완료된 주문의 재고는 그대로다.", 6, em.find(Item.class, spring.getId()).getStockQuantity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 일괄취소_상한보다_많은_주문id는_거부한다() throws Exception {
+        //given
+        List<Long> orderIds = LongStream.rangeClosed(1, OrderService.MAX_BULK_CANCEL + 1).boxed().collect(toList());
+
+        //when
+        orderService.cancelOrders(orderIds);
+
+        //then
+        fail("상한을 넘는 일괄 취소는 예외가 발생해야 한다.");
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);             /*ctrl + alt + P => 값을 파라미터로 꺼내기*/
@@ -0,0 +1,164 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 여러 스레드가 동시에 같은 상품을 주문하는 상황.
+ * 스레드마다 각자 트랜잭션을 커밋해야 하므로 테스트에 @Transactional을 붙이지 않는다.
+ * 커밋된 데이터는 캐시된 테스트 컨텍스트를 같이 쓰는 다른 테스트에 보이므로 테스트마다 지운다.
+ * */
+@SpringBootTest
+class StockConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired OrderService orderService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    private final List<Long> memberIds = new ArrayList<>();
+    private final List<Long> itemIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!memberIds.isEmpty()) {
+                em.createQuery("select o from Order o where o.member.id in :memberIds", Order.class)
+                        .setParameter("memberIds", memberIds)
+                        .getResultList()
+                        .forEach(em::remove); //OrderItem, Delivery는 cascade로 같이 지워진다.
+            }
+            itemIds.forEach(id -> em.remove(em.find(Item.class, id)));
+            memberIds.forEach(id -> em.remove(em.find(Member.class, id)));
+        });
+        memberIds.clear();
+        itemIds.clear();
+    }
+
+    @Test
+    void 동시_주문시_재고보다_많이_팔리지_않는다() throws Exception {
+        //given
+        Member member = transactionTemplate.execute(status -> createMember());
+        Book book = transactionTemplate.execute(status -> createBook(100));
+
+        //when - 재고 100개에 200번 주문
+        Result result = runConcurrently(200, () -> {
+            try {
+                orderService.order(member.getId(), book.getId(), 1);
+                return true;
+            } catch (NotEnoughStockException e) {
+                return false;
+            }
+        });
+
+        //then
+        assertThat(result.successes).isEqualTo(100);
+        assertThat(stockOf(book.getId())).isEqualTo(0);
+    }
+
+    @Test
+    void 조건부_UPDATE와_비관적_락_모두_동시_차감을_잃지_않는다() throws Exception {
+        //given
+        int stock = 200;
+        Book atomicBook = transactionTemplate.execute(status -> createBook(stock));
+        Book lockingBook = transactionTemplate.execute(status -> createBook(stock));
+
+        //when
+        Result atomic = runConcurrently(stock, () -> transactionTemplate.execute(status -> {
+            Item item = itemRepository.findOne(atomicBook.getId());
+            itemRepository.removeStock(item, 1); //조건부 UPDATE 1번
+            return true;
+        }));
+
+        Result locking = runConcurrently(stock, () -> {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Item item = em.find(Item.class, lockingBook.getId(), LockModeType.PESSIMISTIC_WRITE); //select ... for update
+                    item.removeStock(1);
+                    return true;
+                });
+            } catch (PersistenceException | DataAccessException e) { //락 대기 시간 초과
+                return false;
+            }
+        });
+
+        //then - 성공한 만큼 정확히 빠져야 한다. (처리량 비교는 StockUpdateBenchmark)
+        assertThat(atomic.successes).isEqualTo(stock);
+        assertThat(stockOf(atomicBook.getId())).isEqualTo(0);
+        assertThat(stockOf(lockingBook.getId())).isEqualTo(stock - locking.successes);
+    }
+
+    private Result runConcurrently(int tasks, Callable<Boolean> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(task));
+        }
+        int successes = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get()) {
+                successes++;
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return new Result(successes);
+    }
+
+    private int stockOf(Long itemId) {
+        return transactionTemplate.execute(status -> itemRepository.findOne(itemId).getStockQuantity());
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("동시성 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        itemIds.add(book.getId());
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("동시성회원");
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        memberIds.add(member.getId());
+        return member;
+    }
+
+    private static class Result {
+        private final int successes;
+
+        Result(int successes) {
+            this.successes = successes;
+        }
+    }
+}
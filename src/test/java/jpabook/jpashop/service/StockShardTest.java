@@ -0,0 +1,149 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.ItemStockShard;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * 재고 샤딩 - 나누기/합치기, 샤드가 비었을 때 다른 샤드로 넘어가기, 취소
+ * 경합이 있을 때의 처리량은 src/jmh의 StockShardBenchmark 참고
+ * */
+@SpringBootTest
+@Transactional
+class StockShardTest {
+
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+
+    @Test
+    void 샤딩하면_재고를_나눠_담고_해제하면_합쳐서_되돌린다() throws Exception {
+        //given
+        Book book = createBook(10);
+
+        //when
+        itemService.shardStock(book.getId(), 4);
+        em.flush();
+        em.clear();
+
+        //then
+        Item sharded = em.find(Item.class, book.getId());
+        assertThat(sharded.getStockShardCount()).isEqualTo(4);
+        assertThat(sharded.getStockShards()).extracting(ItemStockShard::getQuantity).containsExactly(3, 3, 2, 2);
+        assertThat(sharded.getStockQuantity()).isEqualTo(10);
+
+        //when
+        itemService.unshardStock(book.getId());
+        em.flush();
+        em.clear();
+
+        //then
+        Item unsharded = em.find(Item.class, book.getId());
+        assertThat(unsharded.isStockSharded()).isFalse();
+        assertThat(unsharded.getStockQuantity()).isEqualTo(10);
+        assertThat(findShards(book.getId())).isEmpty();
+    }
+
+    @Test
+    void 고른_샤드가_비어있으면_다른_샤드에서_뺀다() throws Exception {
+        //given - 샤드마다 재고 1
+        Member member = createMember();
+        Book book = createBook(4);
+        itemService.shardStock(book.getId(), 4);
+        em.flush();
+
+        //when - 어느 샤드를 먼저 고르든 빈 샤드는 건너뛴다.
+        for (int i = 0; i < 3; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+
+        //then
+        assertThat(stockOf(book.getId())).isEqualTo(1);
+        assertThatThrownBy(() -> orderService.order(member.getId(), book.getId(), 2))
+                .isInstanceOf(NotEnoughStockException.class);
+    }
+
+    @Test
+    void 한_샤드로_부족하면_여러_샤드에서_나눠서_뺀다() throws Exception {
+        //given - 샤드마다 재고 1
+        Member member = createMember();
+        Book book = createBook(4);
+        itemService.shardStock(book.getId(), 4);
+        em.flush();
+
+        //when
+        orderService.order(member.getId(), book.getId(), 3);
+
+        //then
+        assertThat(stockOf(book.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void 샤딩된_상품의_주문을_취소하면_그_사이_다른_주문이_있어도_재고를_되돌린다() throws Exception {
+        //given
+        Member member = createMember();
+        Book book = createBook(100);
+        itemService.shardStock(book.getId(), 2);
+        em.flush();
+
+        Long orderId = orderService.order(member.getId(), book.getId(), 5);
+        em.flush();
+        assertThat(book.getStockQuantity()).isEqualTo(95); //샤드를 영속성 컨텍스트에 올려둔다.
+
+        //다른 트랜잭션의 주문처럼 샤드 version만 올라가고 영속성 컨텍스트는 예전 값
+        em.createQuery("update ItemStockShard s set s.quantity = s.quantity - 1, s.version = s.version + 1" +
+                        " where s.item.id = :itemId")
+                .setParameter("itemId", book.getId())
+                .executeUpdate();
+
+        //when - 예전에는 샤드 엔티티를 고쳐서 flush 시 OptimisticLockException
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        //then - 100 - 5(주문) - 2(샤드마다 1) + 5(취소)
+        assertThat(stockOf(book.getId())).isEqualTo(98);
+    }
+
+    private int stockOf(Long itemId) {
+        return findShards(itemId).stream().mapToInt(ItemStockShard::getQuantity).sum();
+    }
+
+    private List<ItemStockShard> findShards(Long itemId) {
+        List<ItemStockShard> shards = em.createQuery("select s from ItemStockShard s where s.item.id = :itemId", ItemStockShard.class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+        shards.forEach(em::refresh); //조건부 UPDATE는 영속성 컨텍스트를 거치지 않는다.
+        return shards;
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("샤딩 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("샤딩회원");
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,138 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderListDto;
+import jpabook.jpashop.service.OrderBatchCommand;
+import jpabook.jpashop.service.OrderBatchResult;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static jpabook.jpashop.monitoring.QueryCountAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class OrderQueryServiceTest {
+
+    @Autowired OrderQueryService orderQueryService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+
+    @Test
+    void 주문_목록은_대표상품까지_쿼리_한번에_페이지_단위로_조회한다() throws Exception {
+        //given - 주문 3건, 주문마다 상품 2개
+        Member member = createMember("목록회원");
+        Book jpa = createBook("목록 JPA", 10000);
+        Book spring = createBook("목록 Spring", 20000);
+
+        List<OrderBatchCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            commands.add(new OrderBatchCommand(member.getId(), Arrays.asList(
+                    new OrderBatchCommand.Line(jpa.getId(), 1),
+                    new OrderBatchCommand.Line(spring.getId(), 2))));
+        }
+        List<Long> orderIds = orderService.orderBatch(commands).stream()
+                .map(OrderBatchResult::getOrderId)
+                .collect(toList());
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("목록회원");
+
+        //when
+        OrderPage first = assertQueryCount(1, () -> orderQueryService.findOrderPage(orderSearch, null, 2));
+        OrderPage second = orderQueryService.findOrderPage(orderSearch, first.getNext(), 2);
+
+        //then - 최신 주문부터, 주문당 한 줄
+        assertThat(first.getOrders()).extracting(OrderListDto::getOrderId)
+                .containsExactly(orderIds.get(2), orderIds.get(1));
+        assertThat(first.getNext()).isNotNull();
+        assertThat(second.getOrders()).extracting(OrderListDto::getOrderId)
+                .containsExactly(orderIds.get(0));
+        assertThat(second.getNext()).isNull();
+
+        OrderListDto row = first.getOrders().get(0);
+        assertThat(row.getMemberName()).isEqualTo("목록회원");
+        assertThat(row.getItemName()).isEqualTo("목록 JPA"); //첫 번째 주문상품
+        assertThat(row.getCount()).isEqualTo(1);
+        assertThat(row.getTotalPrice()).isEqualTo(10000 + 20000 * 2);
+        assertThat(row.getStatus()).isEqualTo(OrderStatus.ORDER);
+    }
+
+    @Test
+    void 주문_검색은_조건으로_거르고_주문금액순으로_키셋_페이징한다() throws Exception {
+        //given
+        Member member = createMember("검색%회원");
+        Member other = createMember("검색X회원"); //like에 그대로 넘기면 '검색%'에 같이 걸리는 이름
+        Book jpa = createBook("검색 JPA", 10000);
+        Book spring = createBook("검색 Spring", 20000);
+
+        List<Long> orderIds = orderService.orderBatch(Arrays.asList(
+                new OrderBatchCommand(member.getId(), Arrays.asList(new OrderBatchCommand.Line(jpa.getId(), 1))),    //10,000
+                new OrderBatchCommand(member.getId(), Arrays.asList(new OrderBatchCommand.Line(spring.getId(), 2))), //40,000
+                new OrderBatchCommand(member.getId(), Arrays.asList(
+                        new OrderBatchCommand.Line(jpa.getId(), 1),
+                        new OrderBatchCommand.Line(spring.getId(), 1))),                                               //30,000
+                new OrderBatchCommand(other.getId(), Arrays.asList(new OrderBatchCommand.Line(spring.getId(), 5)))))
+                .stream()
+                .map(OrderBatchResult::getOrderId)
+                .collect(toList());
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("검색%");
+        orderSearch.setSort(OrderSearch.OrderSort.TOTAL_PRICE);
+
+        //when
+        OrderPage first = orderQueryService.findOrderPage(orderSearch, null, 2);
+        OrderPage second = orderQueryService.findOrderPage(orderSearch, first.getNext(), 2);
+
+        //then
+        assertThat(first.getOrders()).extracting(OrderListDto::getOrderId)
+                .containsExactly(orderIds.get(1), orderIds.get(2));
+        assertThat(second.getOrders()).extracting(OrderListDto::getOrderId)
+                .containsExactly(orderIds.get(0));
+        assertThat(second.getNext()).isNull();
+
+        //when - 대표상품이 아니어도 상품이 들어간 주문, 주문금액 하한
+        orderSearch.setItemId(spring.getId());
+        orderSearch.setMinTotalPrice(25000);
+        OrderPage filtered = orderQueryService.findOrderPage(orderSearch, null, 10);
+
+        //then - 세 번째 주문의 대표상품은 JPA지만 Spring도 들어있다.
+        assertThat(filtered.getOrders()).extracting(OrderListDto::getOrderId)
+                .containsExactly(orderIds.get(1), orderIds.get(2));
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
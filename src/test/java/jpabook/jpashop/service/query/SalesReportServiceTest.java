@@ -0,0 +1,151 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/*
+ * 매출 리포트 - 롤업은 별도 트랜잭션(REQUIRES_NEW)에서 만들어지므로 주문 데이터를 커밋해 두고 검증한다.
+ * 다른 테스트의 주문(오늘 날짜)과 섞이지 않도록 지난 날짜로 옮긴 주문만 조회한다.
+ * */
+@SpringBootTest
+class SalesReportServiceTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2001, 3, 1);
+    private static final LocalDate DAY2 = LocalDate.of(2001, 3, 2);
+    private static final LocalDate DAY3 = LocalDate.of(2001, 3, 3);
+
+    @Autowired SalesReportService salesReportService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void 지난_날짜는_롤업하고_취소되면_다시_집계한다() throws Exception {
+        //given
+        Member member = transactionTemplate.execute(status -> createMember("리포트회원"));
+        Book book = transactionTemplate.execute(status -> createBook(1000));
+        Long first = orderService.order(member.getId(), book.getId(), 2);
+        Long second = orderService.order(member.getId(), book.getId(), 3);
+        moveOrderDate(first, DAY1.atTime(10, 0));
+        moveOrderDate(second, DAY2.atTime(23, 59));
+
+        //when
+        List<DaySalesDto> daily = salesReportService.salesByDay(DAY1, DAY2.plusDays(1));
+
+        //then
+        assertThat(daily).extracting(DaySalesDto::getDate).containsExactly(DAY1, DAY2);
+        assertThat(daily).extracting(DaySalesDto::getRevenue).containsExactly(2000L, 3000L);
+        assertThat(closedDays()).isEqualTo(2);
+
+        List<ItemSalesDto> byItem = salesReportService.salesByItem(DAY1, DAY2.plusDays(1), 10);
+        assertThat(byItem).hasSize(1);
+        assertThat(byItem.get(0).getItemName()).isEqualTo("리포트 JPA");
+        assertThat(byItem.get(0).getUnits()).isEqualTo(5);
+
+        //when - 지난 주문 취소
+        orderService.cancelOrder(first);
+
+        //then
+        assertThat(salesReportService.salesByDay(DAY1, DAY2.plusDays(1)))
+                .extracting(DaySalesDto::getDate).containsExactly(DAY2);
+        assertThat(salesReportService.salesByStatus(DAY1, DAY2.plusDays(1)))
+                .extracting(StatusSalesDto::getStatus, StatusSalesDto::getUnits)
+                .containsExactlyInAnyOrder(
+                        tuple(OrderStatus.CANCEL, 2L),
+                        tuple(OrderStatus.ORDER, 3L));
+    }
+
+    @Test
+    void 취소가_커밋되기_전에는_그_날짜를_롤업하지_않는다() throws Exception {
+        //given
+        Member member = transactionTemplate.execute(status -> createMember("리포트회원2"));
+        Book book = transactionTemplate.execute(status -> createBook(1000));
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        moveOrderDate(orderId, DAY3.atTime(12, 0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch canceled = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        try {
+            //when - 취소 트랜잭션이 롤업을 다시 연(락을 잡은) 채로 커밋 전에 멈춰 있는 동안 리포트 조회
+            Future<?> cancel = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                orderService.cancelOrder(orderId);
+                canceled.countDown();
+                await(commit);
+            }));
+            canceled.await(5, TimeUnit.SECONDS);
+            Future<List<DaySalesDto>> report = executor.submit(() -> salesReportService.salesByDay(DAY3, DAY3.plusDays(1)));
+
+            //then - 롤업은 취소가 커밋될 때까지 기다렸다가 취소된 상태로 집계한다.
+            Thread.sleep(300);
+            assertThat(report.isDone()).isFalse();
+            commit.countDown();
+            cancel.get(5, TimeUnit.SECONDS);
+            assertThat(report.get(5, TimeUnit.SECONDS)).isEmpty();
+            assertThat(salesReportService.salesByStatus(DAY3, DAY3.plusDays(1)))
+                    .extracting(StatusSalesDto::getStatus, StatusSalesDto::getUnits)
+                    .containsExactly(tuple(OrderStatus.CANCEL, 2L));
+        } finally {
+            commit.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void moveOrderDate(Long orderId, LocalDateTime orderDate) {
+        transactionTemplate.executeWithoutResult(status -> em.find(Order.class, orderId).setOrderDate(orderDate));
+    }
+
+    private long closedDays() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                        "select count(c) from DailySalesClosing c where c.salesDate between :from and :to", Long.class)
+                .setParameter("from", DAY1)
+                .setParameter("to", DAY2)
+                .getSingleResult());
+    }
+
+    private Book createBook(int price) {
+        Book book = new Book();
+        book.setName("리포트 JPA");
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "테헤란로", "123-456"));
+        em.persist(member);
+        return member;
+    }
+}
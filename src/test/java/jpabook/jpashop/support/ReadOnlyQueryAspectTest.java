@@ -0,0 +1,67 @@
+package jpabook.jpashop.support;
+
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.domain.Order;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * @ReadOnlyQuery - OSIV 영속성 컨텍스트에서 트랜잭션 없이 조회할 때 읽기 전용 모드가 적용되는지.
+ * 주문 데이터는 InitDb가 넣어둔 것을 조회하므로 @Transactional을 붙이지 않는다. (붙이면 쓰기 트랜잭션 안이라 적용되지 않음)
+ * */
+@SpringBootTest
+class ReadOnlyQueryAspectTest {
+
+    @Autowired OrderSimpleApiController orderSimpleApiController;
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void OSIV에서_조회한_엔티티는_읽기_전용이고_끝나면_세션_설정이_돌아온다() throws Exception {
+        //given - OpenEntityManagerInViewInterceptor처럼 영속성 컨텍스트만 열어둔다.
+        EntityManager osivEm = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(osivEm));
+        try {
+            Session session = osivEm.unwrap(Session.class);
+
+            //when
+            List<Order> orders = orderSimpleApiController.ordersV1();
+
+            //then
+            assertThat(orders).isNotEmpty();
+            assertThat(orders).allMatch(session::isReadOnly);
+            assertThat(session.isDefaultReadOnly()).isFalse();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.AUTO);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(osivEm);
+        }
+    }
+
+    @Test
+    void 쓰기_트랜잭션_안에서는_적용하지_않는다() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            //when
+            List<Order> orders = orderSimpleApiController.ordersV1();
+
+            //then - 호출한 쪽이 조회한 엔티티를 수정할 수 있어야 한다.
+            Session session = em.unwrap(Session.class);
+            assertThat(orders).isNotEmpty();
+            assertThat(orders).noneMatch(session::isReadOnly);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TrendingItemTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(LocalDateTime.of(2022, 5, 1, 12, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    private final TrendingItemTracker tracker = new TrendingItemTracker(now::get);
+
+    @Test
+    void 많이_팔린_순서로_보여준다() throws Exception {
+        //given
+        tracker.recordOrder(1L, 2);
+        tracker.recordOrder(2L, 5);
+        tracker.recordOrder(3L, 1);
+        tracker.recordOrder(1L, 1);
+
+        //when
+        //then
+        assertThat(tracker.top(TrendingWindow.FIVE_MINUTES, 2))
+                .extracting(TrendingCount::getItemId, TrendingCount::getCount)
+                .containsExactly(tuple(2L, 5L), tuple(1L, 3L));
+    }
+
+    @Test
+    void 구간이_지난_주문은_빠진다() throws Exception {
+        //given
+        tracker.recordOrder(1L, 3);
+
+        //when
+        now.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        tracker.recordOrder(2L, 1);
+
+        //then
+        assertThat(tracker.top(TrendingWindow.FIVE_MINUTES, 10)).extracting(TrendingCount::getItemId).containsExactly(2L);
+        assertThat(tracker.top(TrendingWindow.ONE_HOUR, 10)).extracting(TrendingCount::getItemId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void 취소하면_주문_시각의_구간에서_뺀다() throws Exception {
+        //given
+        LocalDateTime orderDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get()), ZoneId.systemDefault());
+        tracker.recordOrder(1L, 4);
+        now.addAndGet(TimeUnit.MINUTES.toMillis(30));
+
+        //when
+        tracker.recordCancel(1L, 3, orderDate);
+
+        //then
+        assertThat(tracker.top(TrendingWindow.ONE_HOUR, 10))
+                .extracting(TrendingCount::getItemId, TrendingCount::getCount)
+                .containsExactly(tuple(1L, 1L));
+    }
+
+    @Test
+    void 시작_전에_들어온_주문의_취소는_빼지_않는다() throws Exception {
+        //given - 재시작 전에 들어온 주문 (이 tracker는 센 적이 없음)
+        LocalDateTime beforeStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get()), ZoneId.systemDefault()).minusMinutes(1);
+        tracker.recordOrder(1L, 2);
+
+        //when
+        tracker.recordCancel(1L, 5, beforeStart);
+
+        //then - 같은 칸을 쓰는 상품의 추정치가 작아지지 않아야 한다.
+        assertThat(tracker.top(TrendingWindow.ONE_HOUR, 10))
+                .extracting(TrendingCount::getItemId, TrendingCount::getCount)
+                .containsExactly(tuple(1L, 2L));
+    }
+}